@@ -24,5 +24,18 @@ public class MessageConstant {
     public static final String ORDER_STATUS_ERROR = "订单状态错误";
     public static final String ORDER_NOT_FOUND = "订单不存在";
     public static final String STATUS_UNDEFINED = "无效的店铺营业状态";
+    public static final String SHOP_ADDRESS_PARSE_FAILED = "店铺地址解析失败";
+    public static final String ADDRESS_PARSE_FAILED = "收货地址解析失败";
+    public static final String ROUTE_PLANNING_FAILED = "配送路线规划失败";
+    public static final String OUT_OF_DELIVERY_RANGE = "超出配送范围";
+    public static final String PAGE_CURSOR_INVALID = "分页游标无效";
+    public static final String REPORT_DATE_RANGE_INVALID = "报表日期范围无效";
+    public static final String REPORT_GRANULARITY_INVALID = "无效的统计时间粒度";
+    public static final String REPORT_EXPORT_BUSY = "导出任务过多，请稍后再试";
+    public static final String REPORT_EXPORT_JOB_NOT_FOUND = "导出任务不存在或已过期";
+    public static final String REPORT_EXPORT_NOT_READY = "导出任务尚未完成";
+    public static final String REPORT_EXPORT_FAILED = "导出失败，请稍后重试";
+    public static final String REPORT_REBUILD_RUNNING = "汇总数据正在重建，请稍后再试";
+    public static final String QUERY_TIMEOUT = "查询超时，请稍后再试";
 
 }
@@ -0,0 +1,95 @@
+package com.sky.enumeration;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.ReportBusinessException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 报表统计的时间粒度
+ */
+public enum TimeGranularity {
+
+    /**
+     * 按小时统计，时间标签为 yyyy-MM-dd HH:00
+     */
+    HOUR(ChronoUnit.HOURS, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00")),
+
+    /**
+     * 按天统计，时间标签为 yyyy-MM-dd
+     */
+    DAY(ChronoUnit.DAYS, DateTimeFormatter.ISO_LOCAL_DATE),
+
+    /**
+     * 按周统计(周一开始)，时间标签为每周在统计范围内的第一天
+     */
+    WEEK(ChronoUnit.WEEKS, DateTimeFormatter.ISO_LOCAL_DATE);
+
+    private final ChronoUnit unit;
+    private final DateTimeFormatter formatter;
+
+    TimeGranularity(ChronoUnit unit, DateTimeFormatter formatter) {
+        this.unit = unit;
+        this.formatter = formatter;
+    }
+
+    /**
+     * 按名称(不区分大小写)解析时间粒度，为空时按天统计
+     * @param name
+     * @return
+     */
+    public static TimeGranularity of(String name) {
+        if (name == null || name.isEmpty()) {
+            return DAY;
+        }
+        for (TimeGranularity granularity : values()) {
+            if (granularity.name().equalsIgnoreCase(name)) {
+                return granularity;
+            }
+        }
+        throw new ReportBusinessException(MessageConstant.REPORT_GRANULARITY_INVALID);
+    }
+
+    /**
+     * 时间所在区间的开始时间
+     * @param time
+     * @return
+     */
+    public LocalDateTime truncate(LocalDateTime time) {
+        switch (this) {
+            case HOUR:
+                return time.truncatedTo(ChronoUnit.HOURS);
+            case DAY:
+                return time.toLocalDate().atStartOfDay();
+            default:
+                return time.toLocalDate().with(DayOfWeek.MONDAY).atStartOfDay();
+        }
+    }
+
+    /**
+     * 两个时间所在区间之间相隔的区间数
+     * @param from
+     * @param to
+     * @return
+     */
+    public int between(LocalDateTime from, LocalDateTime to) {
+        return (int) unit.between(truncate(from), truncate(to));
+    }
+
+    /**
+     * 从区间开始时间向后移动若干个区间
+     * @param start
+     * @param amount
+     * @return
+     */
+    public LocalDateTime plus(LocalDateTime start, int amount) {
+        return start.plus(amount, unit);
+    }
+
+    public DateTimeFormatter getFormatter() {
+        return formatter;
+    }
+}
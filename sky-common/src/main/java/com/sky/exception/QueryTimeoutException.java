@@ -0,0 +1,9 @@
+package com.sky.exception;
+
+public class QueryTimeoutException extends BaseException {
+
+    public QueryTimeoutException(String msg) {
+        super(msg);
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.query")
+@Data
+public class AsyncQueryProperties {
+
+    private int threads = 8; //并行查询的线程数
+    private int queueCapacity = 64; //排队等待的查询数，超出时由调用线程直接执行
+    private long timeout = 3000; //一次请求中所有并行查询的总超时时间(毫秒)
+
+}
@@ -0,0 +1,17 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.geo")
+@Data
+public class GeoProperties {
+
+    private int cacheSize = 10000; //收货地址坐标缓存的最大条目数
+    private long cacheTtl = 1440; //收货地址坐标缓存的过期时间(分钟)
+    private int deliveryRange = 5000; //配送范围(米)
+    private long shopRefreshInterval = 3600000; //店铺坐标刷新间隔(毫秒)
+
+}
@@ -0,0 +1,27 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.id")
+@Data
+public class IdProperties {
+
+    /**
+     * 雪花算法节点id(0-1023)，不配置时通过Redis租约自动分配
+     */
+    private Integer nodeId;
+
+    /**
+     * Redis节点租约的有效期(秒)，续约间隔为有效期的三分之一
+     */
+    private long leaseTtl = 60;
+
+    /**
+     * 允许的最大时钟回拨(毫秒)
+     */
+    private long maxBackwardMillis = 5000;
+
+}
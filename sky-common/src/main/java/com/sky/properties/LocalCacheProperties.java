@@ -0,0 +1,19 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.cache.local")
+@Data
+public class LocalCacheProperties {
+
+    private int maxSize = 1000; //缓存未命中合并时每个缓存记录的最大键数
+    private long maxWeight = 20000; //每个缓存在本地保留的最大权重，列表(包括Result中的列表)按元素个数计算，其他值计为1
+    private long ttl = 600; //本地缓存条目的存活时间(秒)，失效通知丢失时的兜底
+    private String channel = "cache:invalidate"; //缓存失效通知的Redis频道
+    private long staleWindow = 5000; //缓存未命中合并时，等待查询的请求可以返回多久之内访问过的旧值(毫秒)，0表示不返回旧值
+    private long waitTimeout = 3000; //缓存未命中合并时，等待其他请求查询的最长时间(毫秒)，超时后返回旧值，没有旧值时查询失败
+
+}
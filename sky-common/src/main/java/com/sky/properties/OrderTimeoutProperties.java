@@ -0,0 +1,28 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order.timeout")
+@Data
+public class OrderTimeoutProperties {
+
+    /**
+     * 订单超时调度方式
+     * wheel: 进程内时间轮，启动时从数据库恢复待付款订单，适合单节点
+     * redis: Redis有序集合，适合多节点
+     * rabbit: RabbitMQ死信队列
+     */
+    private String mode = "wheel";
+
+    private long ttl = 60000; //订单超时时间(毫秒)
+    private long tick = 1000; //时间轮每格跨度、Redis轮询间隔(毫秒)
+    private int wheelSize = 60; //时间轮每层的格数
+    private int batchSize = 100; //每批取消的订单数
+    private int prefetch = 250; //rabbit模式下消费者的预取数量
+    private long flushWindow = 1000; //rabbit模式下凑批的最长等待时间(毫秒)，超时后不足一批也会处理
+    private long claimTimeout = 60000; //redis模式下取出的订单在该时间(毫秒)内没有确认取消时重新调度
+
+}
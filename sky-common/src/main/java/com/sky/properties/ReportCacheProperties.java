@@ -0,0 +1,15 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.report.cache")
+@Data
+public class ReportCacheProperties {
+
+    private long recentTtl = 60; //今天和昨天的报表缓存过期时间(秒)
+    private long historyTtl = 86400; //更早日期的报表缓存过期时间(秒)，数据变化时主动删除，过期时间用于修正删除失败的缓存
+
+}
@@ -0,0 +1,17 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.report.export")
+@Data
+public class ReportExportProperties {
+
+    private String dir = System.getProperty("java.io.tmpdir") + "/sky-report"; //导出文件的存放目录
+    private long ttl = 60; //导出文件的保留时间(分钟)，过期后删除
+    private int threads = 2; //同时执行的导出任务数
+    private int queueCapacity = 8; //排队等待的导出任务数，超出时拒绝提交
+
+}
@@ -0,0 +1,26 @@
+package com.sky.result;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 封装游标分页查询结果，未查询总记录数时total为-1
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class CursorPageResult<T> extends PageResult<T> {
+
+    private String nextCursor; //下一页游标，没有下一页时为null
+
+    private boolean hasMore; //是否还有下一页
+
+    public CursorPageResult(long total, List<T> records, String nextCursor, boolean hasMore) {
+        super(total, records);
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+}
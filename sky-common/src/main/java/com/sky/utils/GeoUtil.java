@@ -0,0 +1,29 @@
+package com.sky.utils;
+
+/**
+ * 地理坐标计算工具类
+ */
+public class GeoUtil {
+
+    // 地球平均半径(米)
+    private static final double EARTH_RADIUS = 6371008.8;
+
+    /**
+     * 使用haversine公式计算两点间的球面直线距离
+     * @param lat1 纬度1
+     * @param lng1 经度1
+     * @param lat2 纬度2
+     * @param lng2 经度2
+     * @return 距离(米)
+     */
+    public static double distance(double lat1, double lng1, double lat2, double lng2) {
+        double radLat1 = Math.toRadians(lat1);
+        double radLat2 = Math.toRadians(lat2);
+        double deltaLat = radLat2 - radLat1;
+        double deltaLng = Math.toRadians(lng2 - lng1);
+
+        double a = Math.sin(deltaLat / 2) * Math.sin(deltaLat / 2)
+                + Math.cos(radLat1) * Math.cos(radLat2) * Math.sin(deltaLng / 2) * Math.sin(deltaLng / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
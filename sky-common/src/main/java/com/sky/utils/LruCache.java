@@ -0,0 +1,87 @@
+package com.sky.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 带过期时间的LRU缓存，线程安全
+ * 超出容量时淘汰最久未访问的条目，条目写入超过ttl后视为失效
+ * @param <K>
+ * @param <V>
+ */
+public class LruCache<K, V> {
+
+    private final long ttlMillis;
+
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    /**
+     * @param maxSize   最大条目数
+     * @param ttlMillis 条目存活时间(毫秒)
+     */
+    public LruCache(int maxSize, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        // accessOrder = true，按访问顺序排列，实现LRU
+        this.map = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存，不存在或已过期返回null
+     * @param key
+     * @return
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expireAt < System.currentTimeMillis()) {
+            map.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * 写入缓存
+     * @param key
+     * @param value
+     */
+    public synchronized void put(K key, V value) {
+        map.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * 删除缓存
+     * @param key
+     */
+    public synchronized void remove(K key) {
+        map.remove(key);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expireAt;
+
+        Entry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
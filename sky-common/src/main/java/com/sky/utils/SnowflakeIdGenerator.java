@@ -0,0 +1,119 @@
+package com.sky.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 雪花算法id生成器，无锁实现
+ * id结构: 1位符号位 + 41位时间戳(毫秒，相对EPOCH) + 10位节点id + 12位序列号
+ * 时间戳和序列号打包在一个AtomicLong中，通过CAS同时推进，单节点每毫秒最多生成4096个id
+ * 节点id来自Redis租约时，租约到期前未续约成功则暂停生成id，重新获得租约后可以切换到新的节点id
+ */
+public class SnowflakeIdGenerator {
+
+    // 起始时间 2025-01-01 00:00:00 (UTC+8)
+    public static final long EPOCH = 1735660800000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int NODE_SHIFT = SEQUENCE_BITS;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + NODE_BITS;
+
+    private volatile long nodeId;
+
+    // 节点id租约的到期时间(System.nanoTime())，leased为false时使用固定节点id，不检查租约
+    private volatile boolean leased;
+    private volatile long leaseDeadline;
+
+    // 允许的最大时钟回拨(毫秒)，回拨在此范围内时沿用上次的时间戳继续生成
+    private final long maxBackwardMillis;
+
+    // 高位为上次使用的时间戳，低12位为序列号
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * @param nodeId            节点id，取值0-1023
+     * @param maxBackwardMillis 允许的最大时钟回拨(毫秒)
+     */
+    public SnowflakeIdGenerator(long nodeId, long maxBackwardMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点id超出范围[0, " + MAX_NODE_ID + "]: " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.maxBackwardMillis = maxBackwardMillis;
+    }
+
+    /**
+     * 生成下一个id，同一节点生成的id唯一且递增
+     * @return
+     */
+    public long nextId() {
+        if (leased && System.nanoTime() - leaseDeadline >= 0) {
+            throw new IllegalStateException("雪花算法节点id租约已失效，暂停生成id");
+        }
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = currentTimeMillis() - EPOCH;
+
+            long next;
+            if (now > lastTimestamp) {
+                // 进入新的毫秒，序列号归零
+                next = now << SEQUENCE_BITS;
+            } else {
+                // 同一毫秒内或发生时钟回拨：沿用上次的时间戳，序列号加一
+                // 序列号用尽时进位到时间戳，相当于借用下一毫秒
+                if (lastTimestamp - now > maxBackwardMillis) {
+                    throw new IllegalStateException("时钟回拨超过" + maxBackwardMillis + "毫秒，拒绝生成id");
+                }
+                next = current + 1;
+            }
+
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & MAX_SEQUENCE;
+                return (timestamp << TIMESTAMP_SHIFT) | (nodeId << NODE_SHIFT) | sequence;
+            }
+        }
+    }
+
+    /**
+     * 使用租约获得的节点id，租约到期前需要通过extendLease续期
+     * @param nodeId 节点id，取值0-1023
+     * @param deadline 租约到期时间(System.nanoTime())
+     */
+    public void assignLease(long nodeId, long deadline) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点id超出范围[0, " + MAX_NODE_ID + "]: " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.leaseDeadline = deadline;
+        this.leased = true;
+    }
+
+    /**
+     * 续约成功后延长租约到期时间
+     * @param deadline 租约到期时间(System.nanoTime())
+     */
+    public void extendLease(long deadline) {
+        this.leaseDeadline = deadline;
+    }
+
+    /**
+     * 租约已丢失，立即暂停生成id
+     */
+    public void revokeLease() {
+        this.leaseDeadline = System.nanoTime();
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,177 @@
+package com.sky.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 分层时间轮
+ * 每层有wheelSize个槽，每个槽的跨度为tickMs，超出本层范围的任务放入上一层(上一层每个槽的跨度为本层一圈)。
+ * 有任务的槽按到期时间放入优先队列，推进时直接跳到下一个到期的槽，空槽不需要逐格扫描；
+ * 上层的槽到期后其中的任务重新插入，逐层下降，直到在最底层到期。
+ * 任务不会提前触发，最多延迟一格(tickMs)触发。
+ * @param <T> 任务类型
+ */
+public class TimingWheel<T> {
+
+    // 所有层共享，按到期时间排序的非空槽
+    private final PriorityQueue<Bucket<T>> queue = new PriorityQueue<>(Comparator.comparingLong(Bucket::getExpiration));
+    private final long tickMs;
+    private final Level<T> root;
+    private int size;
+
+    /**
+     * @param tickMs    最底层每个槽的跨度(毫秒)
+     * @param wheelSize 每层的槽数
+     * @param startMs   起始时间(毫秒)
+     */
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMs和wheelSize必须大于0");
+        }
+        this.tickMs = tickMs;
+        this.root = new Level<>(tickMs, wheelSize, startMs, queue);
+    }
+
+    /**
+     * 添加任务
+     * @param item       任务
+     * @param expiration 到期时间(毫秒)
+     * @return 任务已经到期时返回false，不会加入时间轮，由调用方直接处理
+     */
+    public synchronized boolean add(T item, long expiration) {
+        // 槽在起始时刻到期，到期时间顺延一格，保证任务不会提前触发
+        if (root.add(new Entry<>(item, expiration + tickMs))) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 推进时钟到指定时间，取出所有已到期的任务
+     * @param now 当前时间(毫秒)
+     * @return 到期的任务
+     */
+    public synchronized List<T> advance(long now) {
+        List<T> expired = new ArrayList<>();
+        Bucket<T> bucket;
+        while ((bucket = queue.peek()) != null && bucket.getExpiration() <= now) {
+            queue.poll();
+            root.advanceClock(bucket.getExpiration());
+            for (Entry<T> entry : bucket.flush()) {
+                // 重新插入，上层的任务会下降到下层，最底层的任务到期
+                if (!root.add(entry)) {
+                    expired.add(entry.item);
+                }
+            }
+        }
+        // 剩余的槽均晚于now到期，时钟可以安全推进到now
+        root.advanceClock(now);
+        size -= expired.size();
+        return expired;
+    }
+
+    /**
+     * 时间轮中尚未到期的任务数
+     * @return
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private static class Level<T> {
+        private final long tickMs;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket<T>[] buckets;
+        private final PriorityQueue<Bucket<T>> queue;
+        // 当前时间，为tickMs的整数倍
+        private long currentTime;
+        // 上一层时间轮，按需创建
+        private Level<T> overflow;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMs, int wheelSize, long startMs, PriorityQueue<Bucket<T>> queue) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.interval = tickMs * wheelSize;
+            this.queue = queue;
+            this.currentTime = startMs - (startMs % tickMs);
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+        }
+
+        boolean add(Entry<T> entry) {
+            long expiration = entry.expiration;
+            if (expiration < currentTime + tickMs) {
+                // 已到期
+                return false;
+            }
+            if (expiration < currentTime + interval) {
+                long virtualId = expiration / tickMs;
+                Bucket<T> bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.add(entry);
+                // 槽的到期时间变化说明是新一轮使用，需要重新放入队列
+                if (bucket.setExpiration(virtualId * tickMs)) {
+                    queue.offer(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level<>(interval, wheelSize, currentTime, queue);
+            }
+            return overflow.add(entry);
+        }
+
+        void advanceClock(long time) {
+            if (time >= currentTime + tickMs) {
+                currentTime = time - (time % tickMs);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    private static class Bucket<T> {
+        private List<Entry<T>> entries = new ArrayList<>();
+        private long expiration = -1;
+
+        long getExpiration() {
+            return expiration;
+        }
+
+        boolean setExpiration(long expiration) {
+            if (this.expiration == expiration) {
+                return false;
+            }
+            this.expiration = expiration;
+            return true;
+        }
+
+        void add(Entry<T> entry) {
+            entries.add(entry);
+        }
+
+        List<Entry<T>> flush() {
+            List<Entry<T>> flushed = entries;
+            entries = new ArrayList<>();
+            expiration = -1;
+            return flushed;
+        }
+    }
+
+    private static class Entry<T> {
+        private final T item;
+        private final long expiration;
+
+        Entry(T item, long expiration) {
+            this.item = item;
+            this.expiration = expiration;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.sky.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    /**
+     * 时间可控的生成器
+     */
+    static class ManualClockGenerator extends SnowflakeIdGenerator {
+
+        long millis = SnowflakeIdGenerator.EPOCH + 1000;
+
+        ManualClockGenerator(long nodeId, long maxBackwardMillis) {
+            super(nodeId, maxBackwardMillis);
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return millis;
+        }
+    }
+
+    private static long timestamp(long id) {
+        return id >>> 22;
+    }
+
+    private static long nodeId(long id) {
+        return (id >>> 12) & SnowflakeIdGenerator.MAX_NODE_ID;
+    }
+
+    private static long sequence(long id) {
+        return id & 4095;
+    }
+
+    @Test
+    void idsAreUniqueAndIncreasingAcrossThreads() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, 5000);
+        int threads = 8;
+        int perThread = 50000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<long[]> task = () -> {
+                    long[] ids = new long[perThread];
+                    for (int j = 0; j < perThread; j++) {
+                        ids[j] = generator.nextId();
+                    }
+                    return ids;
+                };
+                futures.add(executor.submit(task));
+            }
+            Set<Long> all = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get(30, TimeUnit.SECONDS);
+                for (int j = 0; j < ids.length; j++) {
+                    if (j > 0) {
+                        assertTrue(ids[j] > ids[j - 1], "同一线程内id应递增");
+                    }
+                    assertEquals(7, nodeId(ids[j]));
+                    all.add(ids[j]);
+                }
+            }
+            assertEquals(threads * perThread, all.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void sequenceIncrementsWithinOneMillisecondAndResetsOnNext() {
+        ManualClockGenerator generator = new ManualClockGenerator(1, 5000);
+        long first = generator.nextId();
+        long second = generator.nextId();
+        assertEquals(timestamp(first), timestamp(second));
+        assertEquals(sequence(first) + 1, sequence(second));
+
+        generator.millis++;
+        long third = generator.nextId();
+        assertEquals(timestamp(first) + 1, timestamp(third));
+        assertEquals(0, sequence(third));
+    }
+
+    @Test
+    void exhaustedSequenceBorrowsNextMillisecond() {
+        ManualClockGenerator generator = new ManualClockGenerator(1, 5000);
+        long previous = generator.nextId();
+        long start = timestamp(previous);
+        for (int i = 1; i < 4096; i++) {
+            long id = generator.nextId();
+            assertEquals(start, timestamp(id));
+            previous = id;
+        }
+        long borrowed = generator.nextId();
+        assertTrue(borrowed > previous);
+        assertEquals(start + 1, timestamp(borrowed));
+        assertEquals(0, sequence(borrowed));
+    }
+
+    @Test
+    void clockRollbackWithinToleranceKeepsIdsIncreasing() {
+        ManualClockGenerator generator = new ManualClockGenerator(1, 5);
+        long before = generator.nextId();
+        generator.millis -= 5;
+        long during = generator.nextId();
+        assertTrue(during > before);
+        assertEquals(timestamp(before), timestamp(during));
+
+        generator.millis += 6;
+        long after = generator.nextId();
+        assertTrue(after > during);
+        assertEquals(timestamp(before) + 1, timestamp(after));
+    }
+
+    @Test
+    void clockRollbackBeyondToleranceIsRejected() {
+        ManualClockGenerator generator = new ManualClockGenerator(1, 5);
+        generator.nextId();
+        generator.millis -= 6;
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void expiredOrRevokedLeaseStopsGeneration() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, 5000);
+        generator.assignLease(3, System.nanoTime() + TimeUnit.SECONDS.toNanos(60));
+        assertEquals(3, nodeId(generator.nextId()));
+
+        generator.revokeLease();
+        assertThrows(IllegalStateException.class, generator::nextId);
+
+        generator.assignLease(4, System.nanoTime() + TimeUnit.SECONDS.toNanos(60));
+        assertEquals(4, nodeId(generator.nextId()));
+
+        generator.extendLease(System.nanoTime() - 1);
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void nodeIdOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024, 5000));
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, 5000);
+        assertThrows(IllegalArgumentException.class, () -> generator.assignLease(-1, System.nanoTime()));
+    }
+}
@@ -0,0 +1,100 @@
+package com.sky.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final long START = 1_000_000;
+    private static final long TICK = 10;
+
+    @Test
+    void overdueItemIsRejected() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, START);
+        assertFalse(wheel.add("overdue", START - 1));
+        assertEquals(0, wheel.size());
+
+        assertTrue(wheel.add("now", START));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void itemFiresWithinOneTickAfterExpiration() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, START);
+        wheel.add("a", START + 25);
+        assertTrue(wheel.advance(START + 25).isEmpty());
+        assertTrue(wheel.advance(START + 29).isEmpty());
+        assertEquals(Arrays.asList("a"), wheel.advance(START + 30));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void itemsAcrossLevelsNeverFireEarlyOrMoreThanOneTickLate() {
+        // 每层8格: 第一层80ms，第二层640ms，第三层5120ms，覆盖三层以上
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, 8, START);
+        Random random = new Random(42);
+        Map<Integer, Long> expirations = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            long expiration = START + random.nextInt(20000);
+            expirations.put(i, expiration);
+            assertTrue(wheel.add(i, expiration));
+        }
+        assertEquals(2000, wheel.size());
+
+        Map<Integer, Long> fired = new HashMap<>();
+        for (long now = START; now <= START + 20000 + TICK; now++) {
+            for (Integer item : wheel.advance(now)) {
+                assertEquals(null, fired.put(item, now), "任务只触发一次");
+            }
+        }
+        assertEquals(expirations.size(), fired.size());
+        for (Map.Entry<Integer, Long> entry : fired.entrySet()) {
+            long expiration = expirations.get(entry.getKey());
+            assertTrue(entry.getValue() >= expiration, "任务不能提前触发");
+            assertTrue(entry.getValue() <= expiration + TICK, "任务最多延迟一格触发");
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advanceSkippingManyTicksReturnsEverythingDue() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, 8, START);
+        List<Integer> due = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            long expiration = START + i * 97L;
+            wheel.add(i, expiration);
+            // 到期时间所在的下一格开始时触发
+            if ((expiration / TICK + 1) * TICK <= START + 5000) {
+                due.add(i);
+            }
+        }
+
+        List<Integer> expired = wheel.advance(START + 5000);
+        expired.sort(null);
+        assertEquals(due, expired);
+        for (Integer item : expired) {
+            assertTrue(START + item * 97L <= START + 5000);
+        }
+        assertEquals(100 - due.size(), wheel.size());
+    }
+
+    @Test
+    void itemAddedAfterAdvanceUsesTheNewClock() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, START);
+        wheel.advance(START + 10000);
+        assertFalse(wheel.add("old", START + 5000));
+        assertTrue(wheel.add("new", START + 10005));
+        assertTrue(wheel.advance(START + 10009).isEmpty());
+        assertEquals(Arrays.asList("new"), wheel.advance(START + 10010));
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 public class OrdersPageQueryDTO implements Serializable {
@@ -27,4 +28,18 @@ public class OrdersPageQueryDTO implements Serializable {
 
     private Long userId;
 
+    //游标分页：传入上一页返回的nextCursor，查询第一页时传空字符串；不传时使用页码分页
+    private String cursor;
+
+    //游标分页时是否查询总记录数，默认不查询
+    private Boolean withTotal;
+
+    //由cursor解析得到，不需要前端传递
+    private LocalDateTime cursorTime;
+
+    private Long cursorId;
+
+    //由搜索索引解析得到的候选订单id，不需要前端传递
+    private List<Long> candidateIds;
+
 }
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
 
 /**
  * 地址簿
@@ -58,4 +59,22 @@ public class AddressBook implements Serializable {
 
     //是否默认 0否 1是
     private Integer isDefault;
+
+    //纬度
+    private Double lat;
+
+    //经度
+    private Double lng;
+
+    //到店铺的配送距离(米)
+    private Integer distance;
+
+    //计算配送距离时使用的店铺坐标，店铺坐标变化后需重新计算
+    private String shopLocation;
+
+    //后台任务连续解析失败的次数
+    private Integer resolveFailCount;
+
+    //解析失败后下次允许后台任务重新解析的时间
+    private LocalDateTime nextResolveTime;
 }
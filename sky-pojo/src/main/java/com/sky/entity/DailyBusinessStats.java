@@ -0,0 +1,38 @@
+package com.sky.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 每日运营数据汇总，订单按结账日期统计，用户按注册日期统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyBusinessStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    //统计日期
+    private LocalDate statDate;
+
+    //营业额(已完成订单金额)
+    private BigDecimal turnover;
+
+    //有效订单数(已完成)
+    private Integer validOrderCount;
+
+    //订单总数(已结账)
+    private Integer totalOrderCount;
+
+    //新增用户数
+    private Integer newUsers;
+
+}
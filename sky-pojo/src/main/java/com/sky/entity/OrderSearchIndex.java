@@ -0,0 +1,36 @@
+package com.sky.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 订单搜索索引，订单号和手机号按3个字符切分后逐段存储，用于子串查询
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchIndex implements Serializable {
+
+    /**
+     * 索引字段 1订单号 2手机号
+     */
+    public static final Integer FIELD_NUMBER = 1;
+    public static final Integer FIELD_PHONE = 2;
+
+    private static final long serialVersionUID = 1L;
+
+    //订单id
+    private Long orderId;
+
+    //索引字段
+    private Integer field;
+
+    //3个字符的片段
+    private String gram;
+
+}
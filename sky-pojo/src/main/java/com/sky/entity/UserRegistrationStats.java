@@ -0,0 +1,31 @@
+package com.sky.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 每日用户注册数及截至当天的累计用户数
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserRegistrationStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    //注册日期
+    private LocalDate statDate;
+
+    //当天新增用户数
+    private Integer newUsers;
+
+    //截至当天(包含)的累计用户数
+    private Long cumulativeUsers;
+
+}
@@ -1,14 +0,0 @@
-package com.sky.vo;
-
-
-import lombok.Data;
-
-import java.io.Serializable;
-import java.time.LocalDate;
-
-@Data
-public class CountUser implements Serializable {
-    private LocalDate date;
-
-    private Long newUserCount; // 新增用户数量
-}
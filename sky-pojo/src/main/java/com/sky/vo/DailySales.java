@@ -0,0 +1,17 @@
+package com.sky.vo;
+
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 每天每个菜品或套餐的销量
+ */
+@Data
+public class DailySales {
+    private LocalDate date;
+    private Long dishId;
+    private Long setmealId;
+    private Long totalNumber;
+}
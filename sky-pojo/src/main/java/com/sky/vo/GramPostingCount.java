@@ -0,0 +1,12 @@
+package com.sky.vo;
+
+import lombok.Data;
+
+/**
+ * 订单搜索索引中片段对应的索引条数
+ */
+@Data
+public class GramPostingCount {
+    private String gram;
+    private Integer count;
+}
@@ -0,0 +1,30 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 经纬度坐标
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationVO implements Serializable {
+
+    //纬度
+    private Double lat;
+
+    //经度
+    private Double lng;
+
+    /**
+     * 转换为百度地图接口使用的 "纬度,经度" 格式
+     * @return
+     */
+    public String toLatLng() {
+        return lat + "," + lng;
+    }
+}
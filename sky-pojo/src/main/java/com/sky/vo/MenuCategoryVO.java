@@ -0,0 +1,35 @@
+package com.sky.vo;
+
+import com.sky.entity.Setmeal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 菜单中的一个分类及其下起售中的菜品或套餐
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuCategoryVO implements Serializable {
+
+    private Long id;
+
+    //类型: 1菜品分类 2套餐分类
+    private Integer type;
+
+    private String name;
+
+    private Integer sort;
+
+    //菜品分类下的菜品(包含口味)
+    private List<DishVO> dishes;
+
+    //套餐分类下的套餐
+    private List<Setmeal> setmeals;
+}
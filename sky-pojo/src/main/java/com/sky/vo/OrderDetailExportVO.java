@@ -0,0 +1,41 @@
+package com.sky.vo;
+
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 报表导出的订单明细行，每个订单的每个菜品或套餐一行
+ */
+@Data
+public class OrderDetailExportVO {
+
+    //订单号
+    private String number;
+
+    //结账时间
+    private LocalDateTime checkoutTime;
+
+    //订单状态
+    private Integer status;
+
+    //收货人
+    private String consignee;
+
+    //手机号
+    private String phone;
+
+    //菜品或套餐名称
+    private String name;
+
+    //口味
+    private String dishFlavor;
+
+    //数量
+    private Integer quantity;
+
+    //金额
+    private BigDecimal amount;
+}
@@ -0,0 +1,42 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 报表导出任务
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportExportJobVO implements Serializable {
+
+    public static final String PENDING = "pending";
+    public static final String RUNNING = "running";
+    public static final String DONE = "done";
+    public static final String FAILED = "failed";
+
+    private String jobId;//任务id
+
+    private String status;//任务状态 pending排队中 running导出中 done已完成 failed失败
+
+    private LocalDate begin;//开始日期
+
+    private LocalDate end;//结束日期
+
+    private Long rows;//已写入的行数
+
+    private String message;//失败原因
+
+    private LocalDateTime createTime;//提交时间
+
+    private LocalDateTime finishTime;//完成时间
+
+}
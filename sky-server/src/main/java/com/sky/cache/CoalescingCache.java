@@ -0,0 +1,183 @@
+package com.sky.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 合并同一个键的并发缓存未命中
+ * 配合@Cacheable(sync = true)使用：未命中时每个节点每个键只有一个请求执行查询，其他请求等待它的结果；
+ * 该键在过期窗口内被访问过时，其他请求直接返回上次访问的值，不等待查询(stale-while-revalidate)；
+ * 等待超过上限时返回上次访问的值(不限过期窗口)，没有访问过则查询失败，避免慢查询占住所有请求线程
+ * 记录的键数量超过上限时清空记录，适合键的数量有限的缓存(如按分类缓存的菜品)
+ */
+public class CoalescingCache implements Cache {
+
+    // 同一个键的访问时间最多每秒更新一次，避免每次命中都写入
+    private static final long TOUCH_INTERVAL_MILLIS = 1000;
+
+    private final Cache delegate;
+    private final long staleMillis;
+    private final long waitMillis;
+    private final int maxKeys;
+    private final Map<Object, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+    private final Map<Object, Seen> seen = new ConcurrentHashMap<>();
+
+    private final Counter loadCounter;
+    private final Counter waitCounter;
+    private final Counter staleCounter;
+    private final Counter timeoutCounter;
+
+    public CoalescingCache(Cache delegate, long staleMillis, long waitMillis, int maxKeys, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.staleMillis = staleMillis;
+        this.waitMillis = waitMillis;
+        this.maxKeys = maxKeys;
+        this.loadCounter = counter(meterRegistry, "load");
+        this.waitCounter = counter(meterRegistry, "wait");
+        this.staleCounter = counter(meterRegistry, "stale");
+        this.timeoutCounter = counter(meterRegistry, "timeout");
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper != null) {
+            Object value = wrapper.get();
+            remember(key, value);
+            return (T) value;
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loads.putIfAbsent(key, future);
+        if (inFlight == null) {
+            return (T) load(key, valueLoader, future);
+        }
+
+        Seen last = seen.get(key);
+        if (last != null && System.currentTimeMillis() - last.seenAt <= staleMillis) {
+            staleCounter.increment();
+            return (T) last.value;
+        }
+        waitCounter.increment();
+        try {
+            return (T) inFlight.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeoutCounter.increment();
+            last = seen.get(key);
+            if (last != null) {
+                return (T) last.value;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (ExecutionException e) {
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    /**
+     * 执行查询并写入缓存，结果同时交给等待的请求
+     */
+    private Object load(Object key, Callable<?> valueLoader, CompletableFuture<Object> future) {
+        try {
+            // 上一次查询可能在本次未命中之后刚刚写入缓存
+            ValueWrapper wrapper = delegate.get(key);
+            Object value;
+            if (wrapper != null) {
+                value = wrapper.get();
+            } else {
+                loadCounter.increment();
+                value = valueLoader.call();
+                delegate.put(key, value);
+            }
+            remember(key, value);
+            future.complete(value);
+            return value;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loads.remove(key, future);
+        }
+    }
+
+    /**
+     * 记录键最近一次访问的值和时间，值不变时按间隔更新时间
+     */
+    private void remember(Object key, Object value) {
+        Seen last = seen.get(key);
+        long now = System.currentTimeMillis();
+        if (last == null || last.value != value) {
+            if (last == null && seen.size() >= maxKeys) {
+                seen.clear();
+            }
+            seen.put(key, new Seen(value, now));
+        } else if (now - last.seenAt > TOUCH_INTERVAL_MILLIS) {
+            last.seenAt = now;
+        }
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("sky.cache.coalesce")
+                .description("缓存未命中时执行查询、等待其他请求的查询、直接返回旧值、等待超时的次数")
+                .tag("cache", delegate.getName())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static class Seen {
+        private final Object value;
+        private volatile long seenAt;
+
+        Seen(Object value, long seenAt) {
+            this.value = value;
+            this.seenAt = seenAt;
+        }
+    }
+}
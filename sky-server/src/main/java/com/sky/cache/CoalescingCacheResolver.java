@@ -0,0 +1,54 @@
+package com.sky.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.AbstractCacheResolver;
+import org.springframework.cache.interceptor.BasicOperation;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 为缓存管理器中的缓存加上未命中合并
+ * 用法: @Cacheable(cacheNames = "...", sync = true, cacheResolver = "coalescingCacheResolver")
+ */
+public class CoalescingCacheResolver extends AbstractCacheResolver {
+
+    private final long staleMillis;
+    private final long waitMillis;
+    private final int maxKeys;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CoalescingCache> caches = new ConcurrentHashMap<>();
+    // 同一个缓存操作每次解析的结果相同，缓存起来避免每次请求重新包装
+    private final Map<BasicOperation, Collection<Cache>> resolved = new ConcurrentHashMap<>();
+
+    public CoalescingCacheResolver(CacheManager cacheManager, long staleMillis, long waitMillis, int maxKeys,
+                                   MeterRegistry meterRegistry) {
+        super(cacheManager);
+        this.staleMillis = staleMillis;
+        this.waitMillis = waitMillis;
+        this.maxKeys = maxKeys;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+        return resolved.computeIfAbsent(context.getOperation(), operation -> {
+            Collection<Cache> result = new ArrayList<>();
+            for (Cache cache : super.resolveCaches(context)) {
+                result.add(caches.computeIfAbsent(cache.getName(),
+                        name -> new CoalescingCache(cache, staleMillis, waitMillis, maxKeys, meterRegistry)));
+            }
+            return result;
+        });
+    }
+
+    @Override
+    protected Collection<String> getCacheNames(CacheOperationInvocationContext<?> context) {
+        return context.getOperation().getCacheNames();
+    }
+}
@@ -0,0 +1,184 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.result.Result;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 两级缓存：进程内Caffeine缓存(一级)在Redis缓存(二级)之前
+ * 一级缓存保存反序列化后的值，命中时直接返回，不访问Redis也不反序列化；读取无全局锁，
+ * 按权重淘汰，列表(包括Result中的列表)的权重为元素个数，大分类占用的容量与其大小相当；
+ * 删除和清空缓存时同时删除二级缓存，并通过Redis频道通知所有节点删除一级缓存
+ * 一级缓存中的值由多个请求共享，调用方不能修改
+ */
+public class LayeredCache implements Cache {
+
+    // 一级缓存的键统一转为字符串，与失效通知中的键一致
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    private final Cache remote;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String channel;
+    // 每次失效加1，从二级缓存读取期间发生失效时不回填一级缓存，避免回填已失效的值
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter localHit;
+    private final Counter localMiss;
+    private final Counter remoteHit;
+    private final Counter remoteMiss;
+
+    public LayeredCache(Cache remote, long maxWeight, long ttlSeconds,
+                        StringRedisTemplate stringRedisTemplate, String channel, MeterRegistry meterRegistry) {
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String key, ValueWrapper wrapper) -> weight(wrapper.get()))
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+        this.remote = remote;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.channel = channel;
+        this.localHit = counter(meterRegistry, "l1", "hit");
+        this.localMiss = counter(meterRegistry, "l1", "miss");
+        this.remoteHit = counter(meterRegistry, "l2", "hit");
+        this.remoteMiss = counter(meterRegistry, "l2", "miss");
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = String.valueOf(key);
+        ValueWrapper wrapper = local.getIfPresent(localKey);
+        if (wrapper != null) {
+            localHit.increment();
+            return wrapper;
+        }
+        localMiss.increment();
+        long current = generation.get();
+        wrapper = remote.get(key);
+        if (wrapper == null) {
+            remoteMiss.increment();
+            return null;
+        }
+        remoteHit.increment();
+        putLocal(localKey, wrapper, current);
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值类型不匹配: " + type.getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        long current = generation.get();
+        T value = remote.get(key, valueLoader);
+        putLocal(String.valueOf(key), new SimpleValueWrapper(value), current);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        long current = generation.get();
+        remote.put(key, value);
+        putLocal(String.valueOf(key), new SimpleValueWrapper(value), current);
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        invalidateLocal(String.valueOf(key));
+        publish(getName() + ":" + key);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        invalidateLocal(null);
+        publish(getName());
+    }
+
+    /**
+     * 删除一级缓存，收到失效通知时调用
+     * @param key 为null时清空
+     */
+    void invalidateLocal(String key) {
+        generation.incrementAndGet();
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    private void putLocal(String key, ValueWrapper wrapper, long expectedGeneration) {
+        if (generation.get() != expectedGeneration) {
+            return;
+        }
+        local.put(key, wrapper);
+        // 写入期间发生失效时撤销写入
+        if (generation.get() != expectedGeneration) {
+            local.invalidate(key);
+        }
+    }
+
+    /**
+     * 一级缓存当前占用的权重
+     */
+    long localWeight() {
+        local.cleanUp();
+        return local.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    static int weight(Object value) {
+        // 缓存的是控制器返回的Result，按其中的数据计算
+        if (value instanceof Result) {
+            value = ((Result<?>) value).getData();
+        }
+        if (value instanceof Collection) {
+            return Math.max(1, ((Collection<?>) value).size());
+        }
+        return 1;
+    }
+
+    private void publish(String message) {
+        stringRedisTemplate.convertAndSend(channel, message);
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String level, String result) {
+        return Counter.builder("sky.cache")
+                .description("两级缓存各级的命中次数")
+                .tag("cache", remote.getName())
+                .tag("level", level)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,75 @@
+package com.sky.cache;
+
+import com.sky.properties.LocalCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 两级缓存管理器，为Redis缓存管理器中的每个缓存加上进程内的一级缓存
+ * 同时监听缓存失效频道，消息格式为"缓存名:键"，只有缓存名时清空该缓存
+ */
+@Slf4j
+public class LayeredCacheManager implements CacheManager, MessageListener {
+
+    private final CacheManager remote;
+    private final LocalCacheProperties localCacheProperties;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LayeredCache> caches = new ConcurrentHashMap<>();
+
+    public LayeredCacheManager(CacheManager remote, LocalCacheProperties localCacheProperties,
+                               StringRedisTemplate stringRedisTemplate, MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.localCacheProperties = localCacheProperties;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        LayeredCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> new LayeredCache(remoteCache,
+                localCacheProperties.getMaxWeight(), localCacheProperties.getTtl(),
+                stringRedisTemplate, localCacheProperties.getChannel(), meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    /**
+     * 收到失效通知，删除本节点的一级缓存
+     * @param message
+     * @param pattern
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf(':');
+        String name = index < 0 ? body : body.substring(0, index);
+        LayeredCache cache = caches.get(name);
+        if (cache == null) {
+            return;
+        }
+        cache.invalidateLocal(index < 0 ? null : body.substring(index + 1));
+        log.debug("收到缓存失效通知: {}", body);
+    }
+}
@@ -0,0 +1,95 @@
+package com.sky.cache;
+
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 按依赖关系清除用户端按分类缓存的菜品和套餐列表
+ * 菜品列表依赖dish.category_id，套餐列表依赖setmeal.category_id，菜品停售会连带停售setmeal_dish中关联的套餐；
+ * 修改前在事务中解析受影响的分类(菜品换分类时包括原分类，删除时包括被删除的数据)，随MenuChangedEvent发布，
+ * 事务提交后只清除这些分类的缓存，不再清空整个缓存
+ */
+@Component
+@Slf4j
+public class MenuCacheInvalidator {
+
+    public static final String DISH_CACHE = "dishesByCategory";
+    public static final String SETMEAL_CACHE = "setmealsByCategory";
+
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+
+    /**
+     * 菜品当前所在的分类
+     * @param dishIds
+     * @return
+     */
+    public Set<Long> dishCategoryIds(List<Long> dishIds) {
+        Set<Long> categoryIds = new HashSet<>();
+        if (dishIds == null || dishIds.isEmpty()) {
+            return categoryIds;
+        }
+        for (Dish dish : dishMapper.getByIds(dishIds)) {
+            categoryIds.add(dish.getCategoryId());
+        }
+        return categoryIds;
+    }
+
+    /**
+     * 套餐当前所在的分类
+     * @param setmealIds
+     * @return
+     */
+    public Set<Long> setmealCategoryIds(List<Long> setmealIds) {
+        Set<Long> categoryIds = new HashSet<>();
+        if (setmealIds == null || setmealIds.isEmpty()) {
+            return categoryIds;
+        }
+        for (Setmeal setmeal : setmealMapper.getByIds(setmealIds)) {
+            categoryIds.add(setmeal.getCategoryId());
+        }
+        return categoryIds;
+    }
+
+    /**
+     * 清除指定分类的菜品和套餐列表缓存
+     * @param dishCategoryIds
+     * @param setmealCategoryIds
+     */
+    public void evict(Collection<Long> dishCategoryIds, Collection<Long> setmealCategoryIds) {
+        evict(DISH_CACHE, dishCategoryIds);
+        evict(SETMEAL_CACHE, setmealCategoryIds);
+    }
+
+    private void evict(String cacheName, Collection<Long> categoryIds) {
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        for (Long categoryId : categoryIds) {
+            if (categoryId != null) {
+                cache.evict(categoryId);
+            }
+        }
+        log.info("清除缓存: {}，分类ID: {}", cacheName, categoryIds);
+    }
+}
@@ -0,0 +1,86 @@
+package com.sky.cache;
+
+import java.time.LocalDateTime;
+
+/**
+ * 不可变的菜单快照：序列化并gzip压缩后的完整菜单及其ETag
+ * ETag由菜单内容计算，内容不变时各节点、各次重建的ETag相同；
+ * gzip压缩和未压缩的响应体不同，强校验的ETag也不同，压缩的响应在ETag后加上-gzip
+ */
+public class MenuSnapshot {
+
+    private final String etag;
+    private final String gzipEtag;
+    private final byte[] gzipBody;
+    private final int contentLength;
+    private final LocalDateTime buildTime;
+
+    public MenuSnapshot(String etag, byte[] gzipBody, int contentLength, LocalDateTime buildTime) {
+        this.etag = etag;
+        this.gzipEtag = etag.endsWith("\"")
+                ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag + "-gzip";
+        this.gzipBody = gzipBody;
+        this.contentLength = contentLength;
+        this.buildTime = buildTime;
+    }
+
+    /**
+     * If-None-Match请求头是否包含当前ETag，按弱比较忽略W/前缀(代理压缩响应时可能将ETag改为弱校验)
+     * @param ifNoneMatch
+     * @param gzip 是否返回gzip压缩的响应
+     * @return
+     */
+    public boolean matches(String ifNoneMatch, boolean gzip) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String current = getEtag(gzip);
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 未压缩的响应体的ETag
+     * @return
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * 响应的ETag
+     * @param gzip 是否返回gzip压缩的响应
+     * @return
+     */
+    public String getEtag(boolean gzip) {
+        return gzip ? gzipEtag : etag;
+    }
+
+    /**
+     * gzip压缩后的响应体，调用方不能修改
+     * @return
+     */
+    public byte[] getGzipBody() {
+        return gzipBody;
+    }
+
+    /**
+     * 未压缩的响应体长度
+     * @return
+     */
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    public LocalDateTime getBuildTime() {
+        return buildTime;
+    }
+}
@@ -0,0 +1,208 @@
+package com.sky.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sky.constant.CategoryTypeConstant;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.mapper.CategoryMapper;
+import com.sky.result.Result;
+import com.sky.service.DishService;
+import com.sky.service.SetmealService;
+import com.sky.vo.DishVO;
+import com.sky.vo.MenuCategoryVO;
+import com.sky.vo.MenuVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 菜单快照管理
+ * 完整菜单在后台线程中生成并序列化、压缩为不可变的快照，请求时直接输出快照的字节；
+ * 菜品、套餐或分类修改后通过Redis频道通知所有节点重建，多次修改合并为一次重建；
+ * 定时重建作为通知丢失时的兜底，内容不变时ETag不变
+ */
+@Component
+@Slf4j
+public class MenuSnapshotManager implements MessageListener {
+
+    public static final String CHANNEL = "menu:changed";
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private DishService dishService;
+    @Autowired
+    private SetmealService setmealService;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private final ObjectMapper objectMapper = new JacksonObjectMapper();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile MenuSnapshot snapshot;
+
+    // 不注册为Spring Bean，避免影响@Async使用的默认线程池
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        // 单线程重建，最多一个排队任务，其余的重建请求由排队任务合并处理
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1),
+                r -> {
+                    Thread thread = new Thread(r, "menu-snapshot");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * 获取当前的菜单快照，首次调用时同步生成
+     * @return
+     */
+    public MenuSnapshot get() {
+        MenuSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = build();
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * 通知所有节点菜单已修改，在修改的事务提交后调用
+     */
+    public void publishChange() {
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, "");
+        } catch (Exception e) {
+            log.error("菜单修改通知发送失败: {}", e.getMessage());
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * 收到菜单修改通知
+     * @param message
+     * @param pattern
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        scheduleRebuild();
+    }
+
+    /**
+     * 定时重建菜单快照，默认每5分钟一次
+     */
+    @Scheduled(initialDelay = 60 * 1000, fixedDelayString = "${sky.menu.refresh-interval:300000}")
+    public void refresh() {
+        scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        dirty.set(true);
+        executor.execute(this::rebuildIfDirty);
+    }
+
+    private void rebuildIfDirty() {
+        while (dirty.getAndSet(false)) {
+            try {
+                MenuSnapshot previous = snapshot;
+                MenuSnapshot current = build();
+                snapshot = current;
+                if (previous == null || !previous.getEtag().equals(current.getEtag())) {
+                    log.info("菜单快照已更新，ETag: {}，大小: {}字节，压缩后: {}字节",
+                            current.getEtag(), current.getContentLength(), current.getGzipBody().length);
+                }
+            } catch (Exception e) {
+                log.error("菜单快照重建失败", e);
+            }
+        }
+    }
+
+    /**
+     * 查询所有启用的分类及其下起售中的菜品和套餐，序列化为与其他接口相同格式的响应体
+     */
+    private MenuSnapshot build() {
+        Dish dishQuery = new Dish();
+        dishQuery.setStatus(StatusConstant.ENABLE);
+        Map<Long, List<DishVO>> dishMap = new HashMap<>();
+        for (DishVO dish : dishService.listWithFlavor(dishQuery)) {
+            dishMap.computeIfAbsent(dish.getCategoryId(), id -> new ArrayList<>()).add(dish);
+        }
+        Setmeal setmealQuery = new Setmeal();
+        setmealQuery.setStatus(StatusConstant.ENABLE);
+        Map<Long, List<Setmeal>> setmealMap = new HashMap<>();
+        for (Setmeal setmeal : setmealService.list(setmealQuery)) {
+            setmealMap.computeIfAbsent(setmeal.getCategoryId(), id -> new ArrayList<>()).add(setmeal);
+        }
+
+        List<MenuCategoryVO> categories = new ArrayList<>();
+        for (Category category : categoryMapper.list(null)) {
+            if (!StatusConstant.ENABLE.equals(category.getStatus())) {
+                continue;
+            }
+            MenuCategoryVO categoryVO = MenuCategoryVO.builder()
+                    .id(category.getId())
+                    .type(category.getType())
+                    .name(category.getName())
+                    .sort(category.getSort())
+                    .build();
+            // 按id排序，保证内容不变时序列化结果和ETag不变
+            if (CategoryTypeConstant.DISH.equals(category.getType())) {
+                List<DishVO> dishes = dishMap.getOrDefault(category.getId(), new ArrayList<>());
+                dishes.sort(Comparator.comparing(DishVO::getId));
+                categoryVO.setDishes(dishes);
+            } else {
+                List<Setmeal> setmeals = setmealMap.getOrDefault(category.getId(), new ArrayList<>());
+                setmeals.sort(Comparator.comparing(Setmeal::getId));
+                categoryVO.setSetmeals(setmeals);
+            }
+            categories.add(categoryVO);
+        }
+
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(Result.success(MenuVO.builder().categories(categories).build()));
+            ByteArrayOutputStream gzip = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+                out.write(body);
+            }
+            String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+            return new MenuSnapshot(etag, gzip.toByteArray(), body.length, LocalDateTime.now());
+        } catch (IOException e) {
+            throw new IllegalStateException("菜单序列化失败", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.sky.config;
+
+import com.sky.cache.CoalescingCacheResolver;
+import com.sky.cache.LayeredCacheManager;
+import com.sky.cache.MenuSnapshotManager;
+import com.sky.properties.LocalCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Spring Cache配置：进程内一级缓存 + Redis二级缓存
+ */
+@Configuration
+@Slf4j
+public class CacheConfiguration {
+
+    @Bean
+    public LayeredCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                            LocalCacheProperties localCacheProperties,
+                                            StringRedisTemplate stringRedisTemplate,
+                                            MeterRegistry meterRegistry) {
+        log.info("开始创建两级缓存管理器...");
+        // 二级缓存与默认的Redis缓存管理器配置相同，已有的缓存数据仍可读取
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig(getClass().getClassLoader()))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        return new LayeredCacheManager(redisCacheManager, localCacheProperties, stringRedisTemplate, meterRegistry);
+    }
+
+    /**
+     * 合并缓存未命中的缓存解析器，用于@Cacheable(sync = true, cacheResolver = "coalescingCacheResolver")
+     */
+    @Bean
+    public CoalescingCacheResolver coalescingCacheResolver(LayeredCacheManager cacheManager,
+                                                           LocalCacheProperties localCacheProperties,
+                                                           MeterRegistry meterRegistry) {
+        return new CoalescingCacheResolver(cacheManager, localCacheProperties.getStaleWindow(),
+                localCacheProperties.getWaitTimeout(), localCacheProperties.getMaxSize(), meterRegistry);
+    }
+
+    /**
+     * 订阅缓存失效频道和菜单修改频道
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                            LayeredCacheManager cacheManager,
+                                                                            LocalCacheProperties localCacheProperties,
+                                                                            MenuSnapshotManager menuSnapshotManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(localCacheProperties.getChannel()));
+        container.addMessageListener(menuSnapshotManager, new ChannelTopic(MenuSnapshotManager.CHANNEL));
+        return container;
+    }
+}
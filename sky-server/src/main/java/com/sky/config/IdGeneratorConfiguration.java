@@ -0,0 +1,125 @@
+package com.sky.config;
+
+import com.sky.properties.IdProperties;
+import com.sky.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花算法id生成器配置
+ * 优先使用配置的节点id，未配置时在Redis中抢占一个空闲节点id并定时续约，保证多实例部署时节点id不重复
+ * 租约到期时间按发出命令前的本地时间计算，早于Redis中key的实际过期时间；续约一直失败时生成器在到期后暂停生成id，
+ * 租约丢失时重新抢占节点id并切换，期间生成id失败，不会与占用同一节点id的其他实例生成重复的id
+ */
+@Configuration
+@Slf4j
+public class IdGeneratorConfiguration {
+
+    private static final String NODE_LEASE_KEY = "snowflake:node:";
+
+    // 仅当租约仍属于当前实例时续约/释放
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('expire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    @Autowired
+    private IdProperties idProperties;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 当前实例标识，作为租约的值
+    private final String instanceId = UUID.randomUUID().toString();
+    // 当前实例持有的租约key，使用配置的节点id或租约已丢失时为null
+    private volatile String leaseKey;
+    private SnowflakeIdGenerator generator;
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator() {
+        if (idProperties.getNodeId() != null) {
+            long nodeId = idProperties.getNodeId();
+            log.info("使用配置的雪花算法节点id: {}", nodeId);
+            return new SnowflakeIdGenerator(nodeId, idProperties.getMaxBackwardMillis());
+        }
+        generator = new SnowflakeIdGenerator(0, idProperties.getMaxBackwardMillis());
+        acquireNodeLease();
+        return generator;
+    }
+
+    /**
+     * 依次尝试抢占0-1023号节点id，成功后切换生成器的节点id
+     */
+    private void acquireNodeLease() {
+        for (long nodeId = 0; nodeId <= SnowflakeIdGenerator.MAX_NODE_ID; nodeId++) {
+            String key = NODE_LEASE_KEY + nodeId;
+            long start = System.nanoTime();
+            Boolean success = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(key, instanceId, idProperties.getLeaseTtl(), TimeUnit.SECONDS);
+            if (Boolean.TRUE.equals(success)) {
+                generator.assignLease(nodeId, start + TimeUnit.SECONDS.toNanos(idProperties.getLeaseTtl()));
+                leaseKey = key;
+                log.info("通过Redis租约获取雪花算法节点id: {}", nodeId);
+                return;
+            }
+        }
+        throw new IllegalStateException("没有空闲的雪花算法节点id");
+    }
+
+    /**
+     * 定时续约，间隔为租约有效期的三分之一
+     * 租约丢失时立即暂停生成id并重新抢占节点id，抢占失败时下次继续尝试
+     */
+    @Scheduled(fixedDelayString = "#{${sky.id.lease-ttl:60} * 1000 / 3}")
+    public void renewNodeLease() {
+        if (generator == null) {
+            return;
+        }
+        try {
+            String key = leaseKey;
+            if (key != null) {
+                long start = System.nanoTime();
+                Long result = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(key),
+                        instanceId, String.valueOf(idProperties.getLeaseTtl()));
+                if (result != null && result == 1) {
+                    generator.extendLease(start + TimeUnit.SECONDS.toNanos(idProperties.getLeaseTtl()));
+                    return;
+                }
+                // 租约已过期并可能被其他实例占用
+                log.error("雪花算法节点id租约已丢失: {}，暂停生成id并重新抢占", key);
+                generator.revokeLease();
+                leaseKey = null;
+            }
+            acquireNodeLease();
+        } catch (Exception e) {
+            log.error("雪花算法节点id续约失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 应用关闭时释放租约
+     */
+    @PreDestroy
+    public void releaseNodeLease() {
+        String key = leaseKey;
+        if (key == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(key), instanceId);
+        } catch (Exception e) {
+            log.warn("雪花算法节点id租约释放失败: {}", e.getMessage());
+        }
+    }
+}
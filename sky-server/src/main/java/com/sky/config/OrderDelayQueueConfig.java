@@ -1,5 +1,10 @@
 package com.sky.config;
 
+import com.sky.properties.OrderTimeoutProperties;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.amqp.core.*;
@@ -7,6 +12,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
+@ConditionalOnProperty(prefix = "sky.order.timeout", name = "mode", havingValue = "rabbit") //仅rabbit模式下声明队列
 public class OrderDelayQueueConfig {
     // --- 延时队列（死信队列）相关配置 ---
 
@@ -24,9 +30,6 @@ public class OrderDelayQueueConfig {
     // 6. 死信队列的路由键
     public static final String ORDER_ROUTING_KEY_DLX = "order.routing.dlx";
 
-    // 订单超时时间，例如30分钟 (1800 * 1000毫秒)
-    public static final long ORDER_TTL = 1 * 60 * 1000;
-
     // === 声明业务交换机和队列 ===
     @Bean
     public DirectExchange orderNormalExchange() {
@@ -41,7 +44,7 @@ public class OrderDelayQueueConfig {
         // 关键：设置消息过期后转发时使用的路由键
         args.put("x-dead-letter-routing-key", ORDER_ROUTING_KEY_DLX);
         // (可选) 为整个队列设置统一的TTL，但我们将在发送消息时单独设置
-        // args.put("x-message-ttl", ORDER_TTL);
+        // args.put("x-message-ttl", ttl);
         return new Queue(ORDER_QUEUE_NORMAL, true, false, false, args);
     }
 
@@ -67,4 +70,24 @@ public class OrderDelayQueueConfig {
     public Binding orderDlxBinding() {
         return BindingBuilder.bind(orderDlxQueue()).to(orderDlxExchange()).with(ORDER_ROUTING_KEY_DLX);
     }
+
+
+    // === 超时订单批量消费 ===
+    public static final String ORDER_BATCH_CONTAINER_FACTORY = "orderTimeoutBatchContainerFactory";
+
+    @Bean(ORDER_BATCH_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory orderTimeoutBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            OrderTimeoutProperties orderTimeoutProperties) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        // 凑满batchSize条或等待flushWindow毫秒后，整批交给监听方法
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(orderTimeoutProperties.getBatchSize());
+        factory.setReceiveTimeout(orderTimeoutProperties.getFlushWindow());
+        factory.setPrefetchCount(Math.max(orderTimeoutProperties.getPrefetch(), orderTimeoutProperties.getBatchSize()));
+        return factory;
+    }
 }
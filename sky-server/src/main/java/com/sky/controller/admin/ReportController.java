@@ -1,9 +1,13 @@
 package com.sky.controller.admin;
 
 
+import com.sky.enumeration.TimeGranularity;
+import com.sky.exception.BaseException;
 import com.sky.result.Result;
+import com.sky.service.ReportExportService;
 import com.sky.service.ReportService;
 import com.sky.vo.OrderReportVO;
+import com.sky.vo.ReportExportJobVO;
 import com.sky.vo.SalesTop10ReportVO;
 import com.sky.vo.TurnoverReportVO;
 import com.sky.vo.UserReportVO;
@@ -13,6 +17,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -27,46 +33,52 @@ public class ReportController {
 
     @Autowired
     private ReportService reportService;
+    @Autowired
+    private ReportExportService reportExportService;
     /**
      * 营业额统计
      * @param begin 统计的开始日期
      * @param end 统计的结束日期
+     * @param granularity 时间粒度 hour、day、week，默认按天
      * @return Result<TurnoverReportVO> 营业额统计结果
      */
     @GetMapping("/turnoverStatistics")
     @ApiOperation(value = "营业额统计", notes = "根据开始和结束日期统计营业额")
     public Result<TurnoverReportVO> turnoverStatistics(
             @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
-            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end) {
-        log.info("营业额统计, 开始日期: {}, 结束日期: {}", begin, end);
-        return Result.success(reportService.turnoverStatistics(begin, end));
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+            String granularity) {
+        log.info("营业额统计, 开始日期: {}, 结束日期: {}, 时间粒度: {}", begin, end, granularity);
+        return Result.success(reportService.turnoverStatistics(begin, end, TimeGranularity.of(granularity)));
     }
 
     /**
      * 用户统计
-     *
+     * 时间粒度 hour、day、week，默认按天
      */
     @ApiOperation(value = "用户统计", notes = "获取用户统计信息")
     @GetMapping("/userStatistics")
     public Result<UserReportVO> userStatistics(
             @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
-            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end) {
-        log.info("用户统计, 开始日期: {}, 结束日期: {}", begin, end);
-        UserReportVO userReportVO = reportService.userStatistics(begin,end);
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+            String granularity) {
+        log.info("用户统计, 开始日期: {}, 结束日期: {}, 时间粒度: {}", begin, end, granularity);
+        UserReportVO userReportVO = reportService.userStatistics(begin, end, TimeGranularity.of(granularity));
         return Result.success(userReportVO);
     }
 
     /**
      * 订单统计
-     *
+     * 时间粒度 hour、day、week，默认按天
      */
     @ApiOperation(value = "订单统计")
     @GetMapping("/ordersStatistics")
     public Result<OrderReportVO> ordersStatistics(
             @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
-            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end) {
-        log.info("订单统计, 开始日期: {}, 结束日期: {}", begin, end);
-        OrderReportVO orderReportVO = reportService.ordersStatistics(begin, end);
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+            String granularity) {
+        log.info("订单统计, 开始日期: {}, 结束日期: {}, 时间粒度: {}", begin, end, granularity);
+        OrderReportVO orderReportVO = reportService.ordersStatistics(begin, end, TimeGranularity.of(granularity));
         return Result.success(orderReportVO);
     }
 
@@ -82,18 +94,81 @@ public class ReportController {
         return Result.success(reportService.top10(begin, end));
     }
 
+    /**
+     * 重建每日和每小时运营数据汇总
+     * 汇总表首次上线或数据修复后调用，不传日期时重建全部数据
+     * 重建在后台执行，返回任务id，进度和结果见日志
+     */
+    @PostMapping("/rebuildStats")
+    @ApiOperation("重建每日运营数据汇总")
+    public Result<String> rebuildStats(
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end) {
+        log.info("重建每日运营数据汇总, 开始日期: {}, 结束日期: {}", begin, end);
+        return Result.success(reportService.submitRebuild(begin, end));
+    }
+
     /**
      * 导出Excel报表接口
+     * 不传日期时导出最近30天(不含今天)的数据
      */
     @GetMapping("/export")
     @ApiOperation("导出Excel报表")
-    public void exportExcel(HttpServletResponse response){
-        log.info("导出Excel报表");
+    public void exportExcel(HttpServletResponse response,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end){
+        if (end == null) {
+            end = LocalDate.now().minusDays(1);
+        }
+        if (begin == null) {
+            begin = end.minusDays(29);
+        }
+        log.info("导出Excel报表, 开始日期: {}, 结束日期: {}", begin, end);
         try {
-            reportService.exportExcel(response);
+            reportService.exportExcel(response, begin, end);
+        } catch (BaseException e) {
+            throw e;
         } catch (Exception e) {
             log.error("导出Excel报表失败: {}", e.getMessage());
             throw new RuntimeException("导出Excel报表失败", e);
         }
     }
+
+    /**
+     * 提交异步导出任务
+     * 不传日期时导出最近30天(不含今天)的数据，返回任务id
+     */
+    @PostMapping("/export/jobs")
+    @ApiOperation("提交报表导出任务")
+    public Result<String> submitExportJob(
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end) {
+        if (end == null) {
+            end = LocalDate.now().minusDays(1);
+        }
+        if (begin == null) {
+            begin = end.minusDays(29);
+        }
+        log.info("提交报表导出任务, 开始日期: {}, 结束日期: {}", begin, end);
+        return Result.success(reportExportService.submit(begin, end));
+    }
+
+    /**
+     * 查询导出任务进度
+     */
+    @GetMapping("/export/jobs/{jobId}")
+    @ApiOperation("查询报表导出任务")
+    public Result<ReportExportJobVO> getExportJob(@PathVariable String jobId) {
+        return Result.success(reportExportService.getJob(jobId));
+    }
+
+    /**
+     * 下载导出任务生成的文件
+     */
+    @GetMapping("/export/jobs/{jobId}/file")
+    @ApiOperation("下载报表导出文件")
+    public void downloadExportFile(@PathVariable String jobId, HttpServletResponse response) {
+        log.info("下载报表导出文件: {}", jobId);
+        reportExportService.download(jobId, response);
+    }
 }
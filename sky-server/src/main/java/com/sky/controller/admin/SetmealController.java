@@ -11,7 +11,6 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -58,7 +57,6 @@ public class SetmealController {
      */
     @PostMapping
     @ApiOperation("新增套餐")
-    @CacheEvict(value = "setmealsByCategory", key = "#setmealDTO.categoryId") // 清除套餐分类缓存
     public Result add(@RequestBody SetmealDTO setmealDTO) {
         log.info("新增套餐: {}", setmealDTO);
         setmealService.add(setmealDTO);
@@ -72,7 +70,6 @@ public class SetmealController {
      */
     @DeleteMapping
     @ApiOperation("批量删除套餐")
-    @CacheEvict(value = "setmealsByCategory", allEntries = true) // 清除所有套餐分类缓存
     public Result deleteBatch(@RequestParam List<Long> ids) {
         log.info("批量删除套餐: {}",ids);
         setmealService.delete(ids);
@@ -87,7 +84,6 @@ public class SetmealController {
      */
     @PostMapping("/status/{status}")
     @ApiOperation("套餐起售、停售")
-    @CacheEvict(value = "setmealsByCategory", allEntries = true) // 清除所有套餐分类缓存
     public Result updateStatus(@PathVariable Integer status, @RequestParam Long id) {
         log.info("套餐起售或停售: 状态={}, 套餐ID={}", status, id);
         setmealService.updateStatus(status, id);
@@ -101,7 +97,6 @@ public class SetmealController {
      */
     @PutMapping
     @ApiOperation("修改套餐")
-    @CacheEvict(value = "setmealsByCategory", allEntries = true) // 清除所有套餐分类缓存
     public Result update(@RequestBody SetmealDTO setmealDTO) {
         log.info("修改套餐: {}", setmealDTO);
         setmealService.update(setmealDTO);
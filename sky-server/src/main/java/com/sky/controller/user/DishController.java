@@ -35,7 +35,7 @@ public class DishController {
      */
     @GetMapping("/list")
     @ApiOperation("根据分类id查询菜品")
-    @Cacheable(value = "dishesByCategory", key = "#categoryId")
+    @Cacheable(value = "dishesByCategory", key = "#categoryId", sync = true, cacheResolver = "coalescingCacheResolver")
     public Result<List<DishVO>> getByCategoryId(@RequestParam Long categoryId) {
         log.info("根据分类id查询菜品接口被调用，分类ID：{}", categoryId);
         Dish dish = new Dish();
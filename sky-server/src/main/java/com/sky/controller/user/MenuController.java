@@ -0,0 +1,69 @@
+package com.sky.controller.user;
+
+import com.sky.cache.MenuSnapshot;
+import com.sky.cache.MenuSnapshotManager;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+@RestController("userMenuController")
+@RequestMapping("/user/menu")
+@Slf4j
+@Api(tags = "C端-菜单相关接口")
+public class MenuController {
+
+    @Autowired
+    private MenuSnapshotManager menuSnapshotManager;
+
+    /**
+     * 查询完整菜单(所有启用的分类及其下的菜品和套餐)
+     * 返回预先生成的菜单快照，菜单未修改时(If-None-Match与ETag相同)返回304
+     */
+    @GetMapping
+    @ApiOperation("查询完整菜单")
+    public void getMenu(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MenuSnapshot snapshot = menuSnapshotManager.get();
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        // 压缩和未压缩的响应使用不同的ETag
+        response.setHeader(HttpHeaders.ETAG, snapshot.getEtag(gzip));
+        // 每次使用前向服务端确认菜单是否修改
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (snapshot.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), gzip)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        ServletOutputStream out = response.getOutputStream();
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.setContentLength(snapshot.getGzipBody().length);
+            out.write(snapshot.getGzipBody());
+        } else {
+            // 不支持gzip的客户端解压后输出
+            response.setContentLength(snapshot.getContentLength());
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzipBody()))) {
+                StreamUtils.copy(in, out);
+            }
+        }
+        out.flush();
+    }
+}
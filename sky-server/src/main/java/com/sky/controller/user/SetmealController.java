@@ -31,7 +31,7 @@ public class SetmealController {
      */
     @GetMapping("/list")
     @ApiOperation("根据分类ID查询套餐")
-    @Cacheable(value = "setmealsByCategory", key = "#categoryId")
+    @Cacheable(value = "setmealsByCategory", key = "#categoryId", sync = true, cacheResolver = "coalescingCacheResolver")
     public Result<List<Setmeal>> list(@RequestParam Long categoryId) {
         log.info("根据分类ID:{} 查询套餐", categoryId);
         Setmeal setmeal = new Setmeal();
@@ -0,0 +1,30 @@
+package com.sky.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 菜品、套餐或分类修改事件，在修改所在的事务中发布，事务提交后重建菜单快照并清除受影响的分类缓存
+ */
+@Getter
+@AllArgsConstructor
+public class MenuChangedEvent {
+
+    //修改内容，用于日志
+    private final String description;
+    //需要清除菜品缓存(dishesByCategory)的分类ID
+    private final Set<Long> dishCategoryIds;
+    //需要清除套餐缓存(setmealsByCategory)的分类ID
+    private final Set<Long> setmealCategoryIds;
+
+    /**
+     * 不影响按分类缓存的菜品和套餐列表的修改
+     * @param description
+     */
+    public MenuChangedEvent(String description) {
+        this(description, Collections.emptySet(), Collections.emptySet());
+    }
+}
@@ -0,0 +1,27 @@
+package com.sky.event;
+
+import com.sky.statemachine.OrderTransition;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 订单状态流转事件，在流转所在的事务中同步发布
+ */
+@Getter
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+
+    //流转
+    private final OrderTransition transition;
+
+    //实际流转的订单id，不为空，只在至少一个订单流转成功时发布事件
+    private final List<Long> orderIds;
+
+    //与orderIds一一对应的流转前状态，单个订单从多个允许的状态流转时不查询流转前状态，对应位置为null
+    private final List<Integer> fromStatuses;
+
+    //实际流转的订单数
+    private final int count;
+}
@@ -0,0 +1,15 @@
+package com.sky.event;
+
+import com.sky.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 新用户注册事件，在注册所在的事务中同步发布
+ */
+@Getter
+@AllArgsConstructor
+public class UserRegisteredEvent {
+
+    private final User user;
+}
@@ -0,0 +1,52 @@
+package com.sky.listener;
+
+import com.sky.event.OrderStatusChangedEvent;
+import com.sky.event.UserRegisteredEvent;
+import com.sky.mapper.DailyBusinessStatsMapper;
+import com.sky.mapper.HourlyBusinessStatsMapper;
+import com.sky.mapper.UserRegistrationStatsMapper;
+import com.sky.statemachine.OrderTransition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * 增量维护每日和每小时运营数据汇总，以及每日注册用户数
+ * 同步监听，与订单状态修改、用户注册在同一事务中提交
+ * 订单总数按结账日期统计，在支付成功时累加；营业额和有效订单数在订单完成时累加；
+ * 取消订单不影响这三项数据(已结账的订单取消后仍计入订单总数)
+ */
+@Component
+@Slf4j
+public class DailyBusinessStatsListener {
+
+    @Autowired
+    private DailyBusinessStatsMapper dailyBusinessStatsMapper;
+    @Autowired
+    private HourlyBusinessStatsMapper hourlyBusinessStatsMapper;
+    @Autowired
+    private UserRegistrationStatsMapper userRegistrationStatsMapper;
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        List<Long> orderIds = event.getOrderIds();
+        if (event.getTransition() == OrderTransition.PAY) {
+            dailyBusinessStatsMapper.addTotalOrders(orderIds);
+            hourlyBusinessStatsMapper.addTotalOrders(orderIds);
+        } else if (event.getTransition() == OrderTransition.COMPLETE) {
+            dailyBusinessStatsMapper.addValidOrders(orderIds);
+            hourlyBusinessStatsMapper.addValidOrders(orderIds);
+        }
+    }
+
+    @EventListener
+    public void onUserRegistered(UserRegisteredEvent event) {
+        dailyBusinessStatsMapper.addNewUsers(event.getUser().getCreateTime().toLocalDate(), 1);
+        hourlyBusinessStatsMapper.addNewUsers(event.getUser().getCreateTime().truncatedTo(ChronoUnit.HOURS), 1);
+        userRegistrationStatsMapper.addNewUsers(event.getUser().getCreateTime().toLocalDate(), 1);
+    }
+}
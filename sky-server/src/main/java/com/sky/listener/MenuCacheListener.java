@@ -0,0 +1,29 @@
+package com.sky.listener;
+
+import com.sky.cache.MenuCacheInvalidator;
+import com.sky.event.MenuChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 菜单修改提交后清除受影响分类的菜品和套餐列表缓存
+ * 在事务提交后执行，回滚的修改不会清除缓存，清除失败只记录日志
+ */
+@Component
+@Slf4j
+public class MenuCacheListener {
+
+    @Autowired
+    private MenuCacheInvalidator menuCacheInvalidator;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        try {
+            menuCacheInvalidator.evict(event.getDishCategoryIds(), event.getSetmealCategoryIds());
+        } catch (Exception e) {
+            log.error("菜单缓存清除失败: {}，{}", event.getDescription(), e.getMessage());
+        }
+    }
+}
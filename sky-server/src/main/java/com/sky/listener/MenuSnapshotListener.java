@@ -0,0 +1,25 @@
+package com.sky.listener;
+
+import com.sky.cache.MenuSnapshotManager;
+import com.sky.event.MenuChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 菜单修改提交后通知所有节点重建菜单快照
+ */
+@Component
+@Slf4j
+public class MenuSnapshotListener {
+
+    @Autowired
+    private MenuSnapshotManager menuSnapshotManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        log.info("菜单已修改: {}", event.getDescription());
+        menuSnapshotManager.publishChange();
+    }
+}
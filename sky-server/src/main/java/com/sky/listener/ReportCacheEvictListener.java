@@ -0,0 +1,52 @@
+package com.sky.listener;
+
+import com.sky.event.OrderStatusChangedEvent;
+import com.sky.event.UserRegisteredEvent;
+import com.sky.mapper.OrderMapper;
+import com.sky.report.ReportCache;
+import com.sky.statemachine.OrderTransition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 报表数据变化后删除对应日期的报表缓存
+ * 在事务提交后执行，避免删除后被并发查询用提交前的数据重新写入缓存
+ * 支付成功改变结账日期的订单总数，订单完成改变结账日期的营业额和有效订单数
+ * 删除失败只记录日志，缓存过期后修正
+ */
+@Component
+@Slf4j
+public class ReportCacheEvictListener {
+
+    @Autowired
+    private ReportCache reportCache;
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        List<Long> orderIds = event.getOrderIds();
+        if (event.getTransition() != OrderTransition.PAY && event.getTransition() != OrderTransition.COMPLETE) {
+            return;
+        }
+        try {
+            reportCache.evict(orderMapper.listCheckoutDates(orderIds));
+        } catch (Exception e) {
+            log.error("报表缓存删除失败，流转: {}，原因: {}", event.getTransition(), e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserRegistered(UserRegisteredEvent event) {
+        try {
+            reportCache.evict(Collections.singletonList(event.getUser().getCreateTime().toLocalDate()));
+        } catch (Exception e) {
+            log.error("报表缓存删除失败，新增用户: {}", e.getMessage());
+        }
+    }
+}
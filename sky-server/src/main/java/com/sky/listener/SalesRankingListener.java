@@ -0,0 +1,60 @@
+package com.sky.listener;
+
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.event.OrderStatusChangedEvent;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.report.SalesRanking;
+import com.sky.statemachine.OrderTransition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单完成后按结账日期累加菜品和套餐的销量排行
+ * 在事务提交后执行，更新失败只记录日志
+ */
+@Component
+@Slf4j
+public class SalesRankingListener {
+
+    @Autowired
+    private SalesRanking salesRanking;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderDetailMapper orderDetailMapper;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        List<Long> orderIds = event.getOrderIds();
+        if (event.getTransition() != OrderTransition.COMPLETE) {
+            return;
+        }
+        try {
+            Map<Long, LocalDate> checkoutDates = new HashMap<>();
+            for (Orders order : orderMapper.listCheckedOut(orderIds)) {
+                checkoutDates.put(order.getId(), order.getCheckoutTime().toLocalDate());
+            }
+            Map<LocalDate, Map<String, Long>> sales = new HashMap<>();
+            for (OrderDetail detail : orderDetailMapper.getByOrderIds(orderIds)) {
+                LocalDate date = checkoutDates.get(detail.getOrderId());
+                if (date != null) {
+                    sales.computeIfAbsent(date, d -> new HashMap<>()).merge(
+                            SalesRanking.member(detail.getDishId(), detail.getSetmealId()),
+                            detail.getNumber().longValue(), Long::sum);
+                }
+            }
+            sales.forEach(salesRanking::increment);
+        } catch (Exception e) {
+            log.error("销量排行更新失败: {}", e.getMessage());
+        }
+    }
+}
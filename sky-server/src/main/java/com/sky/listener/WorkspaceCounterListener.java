@@ -0,0 +1,83 @@
+package com.sky.listener;
+
+import com.sky.entity.Orders;
+import com.sky.event.OrderStatusChangedEvent;
+import com.sky.event.UserRegisteredEvent;
+import com.sky.mapper.OrderMapper;
+import com.sky.report.WorkspaceCounter;
+import com.sky.statemachine.OrderTransition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 订单状态流转和用户注册后更新工作台计数器
+ * 计数器按结账日期统计，未结账(待付款)的订单不计入，因此只处理已结账的订单
+ * 在事务提交后执行，更新失败只记录日志，由定时校准修正
+ */
+@Component
+@Slf4j
+public class WorkspaceCounterListener {
+
+    @Autowired
+    private WorkspaceCounter workspaceCounter;
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        List<Long> orderIds = event.getOrderIds();
+        try {
+            OrderTransition transition = event.getTransition();
+            Map<Long, Integer> fromStatuses = new HashMap<>();
+            for (int i = 0; i < orderIds.size(); i++) {
+                fromStatuses.put(orderIds.get(i), event.getFromStatuses().get(i));
+            }
+            // 按结账日期汇总增量，流转前状态未知的日期重新统计各状态订单数
+            Map<LocalDate, Map<String, Long>> deltas = new HashMap<>();
+            Set<LocalDate> reconcileDates = new HashSet<>();
+            for (Orders order : orderMapper.listCheckedOut(orderIds)) {
+                LocalDate checkoutDate = order.getCheckoutTime().toLocalDate();
+                Map<String, Long> delta = deltas.computeIfAbsent(checkoutDate, date -> new HashMap<>());
+                Integer from = fromStatuses.get(order.getId());
+                if (from == null) {
+                    reconcileDates.add(checkoutDate);
+                } else {
+                    if (!Orders.PENDING_PAYMENT.equals(from)) {
+                        delta.merge(WorkspaceCounter.status(from), -1L, Long::sum);
+                    }
+                    delta.merge(WorkspaceCounter.status(transition.getTo()), 1L, Long::sum);
+                }
+                if (transition == OrderTransition.PAY) {
+                    delta.merge(WorkspaceCounter.TOTAL_ORDERS, 1L, Long::sum);
+                } else if (transition == OrderTransition.COMPLETE) {
+                    delta.merge(WorkspaceCounter.VALID_ORDERS, 1L, Long::sum);
+                    delta.merge(WorkspaceCounter.TURNOVER, WorkspaceCounter.toCents(order.getAmount()), Long::sum);
+                }
+            }
+            deltas.forEach(workspaceCounter::increment);
+            reconcileDates.forEach(workspaceCounter::reconcileStatuses);
+        } catch (Exception e) {
+            log.error("工作台计数器更新失败，流转: {}，原因: {}", event.getTransition(), e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserRegistered(UserRegisteredEvent event) {
+        try {
+            workspaceCounter.increment(event.getUser().getCreateTime().toLocalDate(),
+                    Collections.singletonMap(WorkspaceCounter.NEW_USERS, 1L));
+        } catch (Exception e) {
+            log.error("工作台计数器更新失败，新增用户: {}", e.getMessage());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.sky.mapper;
 
 import com.sky.entity.AddressBook;
 import org.apache.ibatis.annotations.*;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
@@ -23,6 +24,7 @@ public interface AddressBookMapper {
             "         district_name, detail, label, is_default)" +
             "        values (#{userId}, #{consignee}, #{phone}, #{sex}, #{provinceCode}, #{provinceName}, #{cityCode}, #{cityName}," +
             "                #{districtCode}, #{districtName}, #{detail}, #{label}, #{isDefault})")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
     void insert(AddressBook addressBook);
 
     /**
@@ -53,4 +55,34 @@ public interface AddressBookMapper {
     @Delete("delete from address_book where id = #{id}")
     void deleteById(Long id);
 
+    /**
+     * 保存地址的经纬度坐标和配送距离，并清除解析失败记录
+     * 只在地址仍为解析时读取的城市、区县和详细地址时更新，解析期间地址被修改时放弃旧的解析结果
+     * @param addressBook
+     * @return 更新的行数
+     */
+    @Update("update address_book set lat = #{lat}, lng = #{lng}, distance = #{distance}, shop_location = #{shopLocation}," +
+            " resolve_fail_count = 0, next_resolve_time = null" +
+            " where id = #{id} and city_name <=> #{cityName} and district_name <=> #{districtName} and detail <=> #{detail}")
+    int updateLocation(AddressBook addressBook);
+
+    /**
+     * 记录后台任务解析失败，在下次允许重新解析的时间之前后台任务跳过该地址
+     * @param id
+     * @param failCount 连续失败次数
+     * @param nextResolveTime 下次允许重新解析的时间
+     */
+    @Update("update address_book set resolve_fail_count = #{failCount}, next_resolve_time = #{nextResolveTime} where id = #{id}")
+    void updateResolveFailure(Long id, int failCount, LocalDateTime nextResolveTime);
+
+    /**
+     * 查询尚未计算配送距离或基于旧店铺坐标计算的地址，按id游标分批查询，跳过解析失败后尚未到重试时间的地址
+     * @param shopLocation 当前店铺坐标
+     * @param now 当前时间
+     * @param lastId 上一批最后一条记录的id
+     * @param limit 每批数量
+     * @return
+     */
+    List<AddressBook> listStaleLocation(String shopLocation, LocalDateTime now, Long lastId, int limit);
+
 }
@@ -0,0 +1,72 @@
+package com.sky.mapper;
+
+import com.sky.entity.DailyBusinessStats;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface DailyBusinessStatsMapper {
+
+    /**
+     * 按结账日期累加订单总数
+     * @param orderIds 新结账的订单id
+     */
+    void addTotalOrders(List<Long> orderIds);
+
+    /**
+     * 按结账日期累加营业额和有效订单数
+     * @param orderIds 新完成的订单id
+     */
+    void addValidOrders(List<Long> orderIds);
+
+    /**
+     * 累加新增用户数
+     * @param statDate
+     * @param count
+     */
+    void addNewUsers(LocalDate statDate, int count);
+
+    /**
+     * 查询日期范围内的汇总数据，没有数据的日期不返回
+     * @param begin
+     * @param end
+     * @return
+     */
+    @Select("select * from daily_business_stats where stat_date between #{begin} and #{end} order by stat_date")
+    List<DailyBusinessStats> list(LocalDate begin, LocalDate end);
+
+    /**
+     * 清空日期范围内的汇总数据，重建前调用
+     * @param begin
+     * @param end
+     */
+    @Update("update daily_business_stats set turnover = 0, valid_order_count = 0, total_order_count = 0, new_users = 0 " +
+            "where stat_date between #{begin} and #{end}")
+    void reset(LocalDate begin, LocalDate end);
+
+    /**
+     * 根据订单表重新统计日期范围内的订单数据
+     * @param begin
+     * @param endPlusOne
+     */
+    void rebuildOrders(LocalDate begin, LocalDate endPlusOne);
+
+    /**
+     * 根据用户表重新统计日期范围内的新增用户数
+     * @param begin
+     * @param endPlusOne
+     */
+    void rebuildUsers(LocalDate begin, LocalDate endPlusOne);
+
+    /**
+     * 查询最早的结账日期和注册日期中较早的一个，用于确定重建范围
+     * @return
+     */
+    @Select("select least(coalesce((select date(min(checkout_time)) from orders), curdate()), " +
+            "coalesce((select date(min(create_time)) from user), curdate()))")
+    LocalDate getEarliestDate();
+}
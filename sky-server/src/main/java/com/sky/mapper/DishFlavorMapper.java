@@ -17,4 +17,11 @@ public interface DishFlavorMapper {
 
     @Select("select * from dish_flavor where dish_id = #{id}")
     List<DishFlavor> getByDishId(Long id);
+
+    /**
+     * 批量查询多个菜品的口味，按菜品id和口味id排序，保证菜单内容和ETag稳定
+     * @param dishIds
+     * @return
+     */
+    List<DishFlavor> getByDishIds(List<Long> dishIds);
 }
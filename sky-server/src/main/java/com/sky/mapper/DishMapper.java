@@ -45,6 +45,8 @@ public interface DishMapper {
     @Select("select * from dish where id = #{id}")
     Dish getById(Long id);
 
+    List<Dish> getByIds(List<Long> ids);
+
 
     List<Dish> list(Dish dish);
 
@@ -0,0 +1,65 @@
+package com.sky.mapper;
+
+import com.sky.entity.HourlyBusinessStats;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface HourlyBusinessStatsMapper {
+
+    /**
+     * 按结账时间所在小时累加订单总数
+     * @param orderIds 新结账的订单id
+     */
+    void addTotalOrders(List<Long> orderIds);
+
+    /**
+     * 按结账时间所在小时累加营业额和有效订单数
+     * @param orderIds 新完成的订单id
+     */
+    void addValidOrders(List<Long> orderIds);
+
+    /**
+     * 累加新增用户数
+     * @param statHour 整点时间
+     * @param count
+     */
+    void addNewUsers(LocalDateTime statHour, int count);
+
+    /**
+     * 查询时间范围内的汇总数据，没有数据的小时不返回
+     * @param begin
+     * @param endExclusive
+     * @return
+     */
+    @Select("select * from hourly_business_stats where stat_hour >= #{begin} and stat_hour < #{endExclusive} " +
+            "order by stat_hour")
+    List<HourlyBusinessStats> list(LocalDateTime begin, LocalDateTime endExclusive);
+
+    /**
+     * 清空时间范围内的汇总数据，重建前调用
+     * @param begin
+     * @param endExclusive
+     */
+    @Update("update hourly_business_stats set turnover = 0, valid_order_count = 0, total_order_count = 0, new_users = 0 " +
+            "where stat_hour >= #{begin} and stat_hour < #{endExclusive}")
+    void reset(LocalDateTime begin, LocalDateTime endExclusive);
+
+    /**
+     * 根据订单表重新统计时间范围内的订单数据
+     * @param begin
+     * @param endExclusive
+     */
+    void rebuildOrders(LocalDateTime begin, LocalDateTime endExclusive);
+
+    /**
+     * 根据用户表重新统计时间范围内的新增用户数
+     * @param begin
+     * @param endExclusive
+     */
+    void rebuildUsers(LocalDateTime begin, LocalDateTime endExclusive);
+}
@@ -2,9 +2,11 @@ package com.sky.mapper;
 
 
 import com.sky.entity.OrderDetail;
-import com.sky.vo.SalesTop10;
+import com.sky.vo.DailySales;
+import com.sky.vo.OrderDetailExportVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -17,6 +19,35 @@ public interface OrderDetailMapper {
     @Select("select * from order_detail where order_id = #{id}")
     List<OrderDetail> getByOrderId(Long id);
 
-
-    List<SalesTop10> salesTop10(LocalDate begin, LocalDate endPlusOne);
+    /**
+     * 批量查询多个订单的订单详情，按订单id排序
+     * @param orderIds
+     * @return
+     */
+    List<OrderDetail> getByOrderIds(List<Long> orderIds);
+
+    /**
+     * 按结账日期统计每天已完成订单中各菜品和套餐的销量，按菜品id和套餐id分组
+     * @param begin
+     * @param endPlusOne
+     * @return
+     */
+    List<DailySales> salesByCheckoutDate(LocalDate begin, LocalDate endPlusOne);
+
+    /**
+     * 一次查询多个菜品和套餐最近一次下单时的名称，用于已删除的菜品或套餐
+     * @param dishIds
+     * @param setmealIds
+     * @return 每个菜品或套餐最近一条订单明细的菜品id、套餐id和名称
+     */
+    List<OrderDetail> getLatestNames(List<Long> dishIds, List<Long> setmealIds);
+
+    /**
+     * 流式查询结账时间范围内的订单明细，用于报表导出
+     * 需要在事务中遍历，遍历完成前连接不会释放
+     * @param begin
+     * @param endPlusOne
+     * @return
+     */
+    Cursor<OrderDetailExportVO> streamForExport(LocalDate begin, LocalDate endPlusOne);
 }
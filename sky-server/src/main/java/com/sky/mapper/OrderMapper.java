@@ -4,6 +4,7 @@ package com.sky.mapper;
 import com.github.pagehelper.Page;
 import com.sky.dto.OrdersPageQueryDTO;
 import com.sky.entity.Orders;
+import com.sky.statemachine.OrderTransition;
 import com.sky.vo.*;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
@@ -32,6 +33,47 @@ public interface OrderMapper {
 
     Page<OrderVO> ordersPageQuery(OrdersPageQueryDTO ordersPageQueryDTO);
 
+    /**
+     * 游标分页查询，按(下单时间, id)倒序，从cursorTime和cursorId之后开始，最多返回pageSize+1条
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    List<OrderVO> ordersCursorQuery(OrdersPageQueryDTO ordersPageQueryDTO);
+
+    /**
+     * 按id顺序分批查询订单号和手机号，用于建立搜索索引
+     * @param lastId 上一批最后一个订单id
+     * @param maxId 最大订单id
+     * @param limit
+     * @return
+     */
+    @Select("select id, number, phone from orders where id > #{lastId} and id <= #{maxId} order by id limit #{limit}")
+    List<Orders> listForSearchIndex(Long lastId, Long maxId, int limit);
+
+    @Select("select max(id) from orders")
+    Long getMaxId();
+
+    /**
+     * 查询订单的结账日期，去重
+     * @param ids
+     * @return
+     */
+    List<LocalDate> listCheckoutDates(List<Long> ids);
+
+    /**
+     * 查询已结账订单的结账时间和金额
+     * @param ids
+     * @return
+     */
+    List<Orders> listCheckedOut(List<Long> ids);
+
+    /**
+     * 统计满足分页查询条件的订单数量
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    Long countOrders(OrdersPageQueryDTO ordersPageQueryDTO);
+
     @Select("select * from orders where id = #{id}")
     OrderVO getOrdersById(Long id);
 
@@ -41,9 +83,65 @@ public interface OrderMapper {
     @Select("select id from orders where status = #{pendingPayment} and order_time <= #{time}")
     List<Long> getByStatusAndOrderTime(Integer pendingPayment, LocalDateTime time);
 
-    List<SumAmount> sumAmountByCheckoutTime(LocalDate begin, LocalDate endPlusOne, Integer status);
+    /**
+     * 按id顺序分批查询指定状态的订单
+     * @param status
+     * @param lastId 上一批最后一条订单的id
+     * @param limit
+     * @return
+     */
+    @Select("select * from orders where status = #{status} and id > #{lastId} order by id limit #{limit}")
+    List<Orders> listByStatus(Integer status, Long lastId, int limit);
 
-    List<CountOrders> countOrdersByCheckoutTime(LocalDate begin, LocalDate endPlusOne, Integer status);
+    /**
+     * 按订单号查询订单id
+     * @param numbers
+     * @return 只包含id和订单号
+     */
+    List<Orders> listByNumbers(List<String> numbers);
+
+    /**
+     * 按id顺序分批查询状态在statuses中且下单时间不晚于time的订单id
+     * @param statuses
+     * @param time
+     * @param lastId 上一批最后一个订单id
+     * @param limit
+     * @return
+     */
+    List<Long> listIdsByStatusAndOrderTime(List<Integer> statuses, LocalDateTime time, Long lastId, int limit);
+
+    /**
+     * 锁定状态仍在statuses中的订单，返回锁定订单的id和当前状态，需要在事务中调用
+     * @param ids
+     * @param statuses
+     * @return
+     */
+    List<Orders> lockByStatus(List<Long> ids, List<Integer> statuses);
+
+    /**
+     * 查询订单状态
+     * @param id
+     * @return 订单不存在时返回null
+     */
+    @Select("select status from orders where id = #{id}")
+    Integer getStatusById(Long id);
+
+    /**
+     * 按订单状态流转修改订单，只修改当前状态允许该流转的订单
+     * @param transition
+     * @param orders 订单id及需要同时修改的字段
+     * @return 实际修改的订单数
+     */
+    int updateStatusById(OrderTransition transition, Orders orders);
+
+    /**
+     * 按订单id批量流转
+     * @param ids
+     * @param transition
+     * @param orders 需要同时修改的字段
+     * @return 实际修改的订单数
+     */
+    int updateStatusByIds(List<Long> ids, OrderTransition transition, Orders orders);
 
     List<AvgAmount> avgAmountByCheckoutTime(LocalDate begin, LocalDate endPlusOne, Integer status);
 }
@@ -0,0 +1,35 @@
+package com.sky.mapper;
+
+import com.sky.entity.OrderSearchIndex;
+import com.sky.vo.GramPostingCount;
+import org.apache.ibatis.annotations.Mapper;
+
+import java.util.List;
+
+@Mapper
+public interface OrderSearchIndexMapper {
+
+    /**
+     * 批量插入索引，已存在的忽略
+     * @param list
+     */
+    void insertBatch(List<OrderSearchIndex> list);
+
+    /**
+     * 统计每个片段的索引条数，每个片段最多读取limit条
+     * @param field 索引字段
+     * @param grams 去重后的片段
+     * @param limit
+     * @return 没有索引的片段不返回
+     */
+    List<GramPostingCount> countPostings(Integer field, List<String> grams, int limit);
+
+    /**
+     * 查询包含全部片段的订单id，按订单id倒序
+     * @param field 索引字段
+     * @param grams 去重后的片段
+     * @param limit
+     * @return
+     */
+    List<Long> listOrderIds(Integer field, List<String> grams, int limit);
+}
@@ -38,6 +38,13 @@ public interface SetmealMapper {
      */
     Setmeal getById(Long id);
 
+    /**
+     * 根据id批量查询套餐信息
+     * @param ids 套餐ID列表
+     * @return List<Setmeal> 套餐信息列表
+     */
+    List<Setmeal> getByIds(List<Long> ids);
+
     /**
      * 新增套餐
      * @param setmeal 套餐信息
@@ -2,14 +2,9 @@ package com.sky.mapper;
 
 
 import com.sky.entity.User;
-import com.sky.vo.CountUser;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.List;
-
 @Mapper
 public interface UserMapper {
 
@@ -22,9 +17,4 @@ public interface UserMapper {
 
     @Select("select * from user where id = #{userId}")
     User getById(Long userId);
-
-    List<CountUser> countUserByCreateTime(LocalDate begin, LocalDate endPlusOne);
-
-    @Select("select count(0) from user where  create_time < #{time}")
-    Long countUserBeforeDate(LocalDateTime time);
 }
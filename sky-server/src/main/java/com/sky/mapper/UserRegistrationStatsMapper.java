@@ -0,0 +1,59 @@
+package com.sky.mapper;
+
+import com.sky.entity.UserRegistrationStats;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface UserRegistrationStatsMapper {
+
+    /**
+     * 累加指定日期的新增用户数，只写入当天一条记录
+     * 累计用户数在当天结束后由定时任务计算，未计算前为0
+     * @param statDate
+     * @param count
+     */
+    void addNewUsers(LocalDate statDate, int count);
+
+    /**
+     * 查询指定日期之前的累计用户数
+     * 取之前最近一条已计算累计用户数的记录，加上它之后各天的新增用户数，通常只涉及一两条记录
+     * @param date
+     * @return
+     */
+    Long getCumulativeBefore(LocalDate date);
+
+    /**
+     * 查询日期范围内的记录
+     * @param begin
+     * @param end
+     * @return
+     */
+    @Select("select * from user_registration_stats where stat_date between #{begin} and #{end} order by stat_date")
+    List<UserRegistrationStats> list(LocalDate begin, LocalDate end);
+
+    /**
+     * 根据用户表重新统计日期范围内每天的新增用户数，累计用户数需要另外计算
+     * @param begin
+     * @param endPlusOne
+     */
+    void rebuildNewUsers(LocalDate begin, LocalDate endPlusOne);
+
+    /**
+     * 清空日期范围内的新增用户数，重建前调用
+     * @param begin
+     * @param end
+     */
+    @Update("update user_registration_stats set new_users = 0 where stat_date between #{begin} and #{end}")
+    void reset(LocalDate begin, LocalDate end);
+
+    /**
+     * 批量更新累计用户数
+     * @param statsList
+     */
+    void updateCumulative(List<UserRegistrationStats> statsList);
+}
@@ -0,0 +1,158 @@
+package com.sky.report;
+
+import com.sky.enumeration.TimeGranularity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 按时间粒度分段的运营数据序列
+ * 统计范围内的每个区间对应数组中的一个位置，汇总数据按时间累加到所在区间，没有数据的区间保持为0，
+ * 不需要逐个区间补齐，也不为每个区间创建Long、BigDecimal对象；营业额以分为单位累加
+ * 输出时直接拼接为逗号分隔的字符串
+ */
+public class BusinessStatsSeries {
+
+    private final TimeGranularity granularity;
+    private final LocalDateTime origin;
+    private final LocalDateTime endExclusive;
+    private final long[] turnover;
+    private final long[] validOrders;
+    private final long[] totalOrders;
+    private final long[] newUsers;
+
+    /**
+     * @param granularity 时间粒度
+     * @param begin 开始日期
+     * @param end 结束日期(包含)
+     */
+    public BusinessStatsSeries(TimeGranularity granularity, LocalDate begin, LocalDate end) {
+        this.granularity = granularity;
+        this.origin = begin.atStartOfDay();
+        this.endExclusive = end.plusDays(1).atStartOfDay();
+        int size = granularity.between(origin, end.atTime(23, 0)) + 1;
+        this.turnover = new long[size];
+        this.validOrders = new long[size];
+        this.totalOrders = new long[size];
+        this.newUsers = new long[size];
+    }
+
+    /**
+     * 累加一条汇总数据，统计范围外的数据忽略
+     * @param time 汇总数据的时间
+     * @param turnover 营业额
+     * @param validOrders 有效订单数
+     * @param totalOrders 订单总数
+     * @param newUsers 新增用户数
+     */
+    public void add(LocalDateTime time, BigDecimal turnover, int validOrders, int totalOrders, int newUsers) {
+        if (time.isBefore(origin) || !time.isBefore(endExclusive)) {
+            return;
+        }
+        int index = granularity.between(origin, time);
+        this.turnover[index] += WorkspaceCounter.toCents(turnover);
+        this.validOrders[index] += validOrders;
+        this.totalOrders[index] += totalOrders;
+        this.newUsers[index] += newUsers;
+    }
+
+    public int size() {
+        return turnover.length;
+    }
+
+    /**
+     * 每个区间的时间标签，第一个区间使用统计开始时间
+     * @return
+     */
+    public String labels() {
+        StringBuilder sb = new StringBuilder(size() * 17);
+        LocalDateTime first = granularity.truncate(origin);
+        for (int i = 0; i < size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            LocalDateTime start = granularity.plus(first, i);
+            granularity.getFormatter().formatTo(start.isBefore(origin) ? origin : start, sb);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 每个区间的营业额，保留两位小数
+     * @return
+     */
+    public String turnover() {
+        StringBuilder sb = new StringBuilder(size() * 8);
+        for (int i = 0; i < size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            long cents = turnover[i];
+            if (cents < 0) {
+                sb.append('-');
+                cents = -cents;
+            }
+            long fraction = cents % 100;
+            sb.append(cents / 100).append('.').append(fraction < 10 ? "0" : "").append(fraction);
+        }
+        return sb.toString();
+    }
+
+    public String validOrders() {
+        return join(validOrders, -1);
+    }
+
+    public String totalOrders() {
+        return join(totalOrders, -1);
+    }
+
+    public String newUsers() {
+        return join(newUsers, -1);
+    }
+
+    /**
+     * 每个区间结束时的用户总数
+     * @param base 统计开始前的用户总数
+     * @return
+     */
+    public String cumulativeUsers(long base) {
+        return join(newUsers, base);
+    }
+
+    public long sumValidOrders() {
+        return sum(validOrders);
+    }
+
+    public long sumTotalOrders() {
+        return sum(totalOrders);
+    }
+
+    /**
+     * 拼接为逗号分隔的字符串，base不小于0时输出从base开始的累计值
+     */
+    private String join(long[] values, long base) {
+        StringBuilder sb = new StringBuilder(values.length * 4);
+        long total = base;
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            if (base < 0) {
+                sb.append(values[i]);
+            } else {
+                total += values[i];
+                sb.append(total);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+}
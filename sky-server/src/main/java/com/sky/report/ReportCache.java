@@ -0,0 +1,179 @@
+package com.sky.report;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.entity.DailyBusinessStats;
+import com.sky.mapper.DailyBusinessStatsMapper;
+import com.sky.properties.ReportCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 按天缓存报表数据
+ * 每个指标每天一个缓存，范围查询时批量读取缓存，未命中的日期合并为一次数据库查询
+ * 今天和昨天的数据仍会变化(如昨天结账的订单今天完成)，使用较短的过期时间；
+ * 更早的日期在订单状态变化或重建汇总数据时主动删除，同时设置较长的过期时间，删除失败时过期后自动修正
+ * 删除缓存时递增版本号，查询数据库前读取版本号，写回缓存时版本号已变化说明期间有缓存被删除，
+ * 查询结果可能早于删除前的修改，放弃写回
+ */
+@Component
+public class ReportCache {
+
+    private static final String DAILY_STATS_KEY = "report:daily:";
+    private static final String GENERATION_SUFFIX = "gen";
+
+    // 版本号未变化时写入缓存
+    // KEYS: 版本号、缓存key...  ARGV: 读取的版本号，之后每个缓存依次为值和过期时间(秒)
+    private static final DefaultRedisScript<Long> WRITE_BACK_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('get', KEYS[1]) or '0') ~= ARGV[1] then return 0 end " +
+            "for i = 2, #KEYS do " +
+                    "redis.call('setex', KEYS[i], ARGV[2 * i - 1], ARGV[2 * i - 2]) " +
+            "end " +
+            "return 1",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private DailyBusinessStatsMapper dailyBusinessStatsMapper;
+    @Autowired
+    private ReportCacheProperties reportCacheProperties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 查询日期范围内每天的运营数据汇总，没有数据的日期返回全0的汇总
+     * @param begin
+     * @param end
+     * @return 按日期排序的映射
+     */
+    public Map<LocalDate, DailyBusinessStats> getDailyStats(LocalDate begin, LocalDate end) {
+        return getCells("daily", DAILY_STATS_KEY, begin, end,
+                json -> JSON.parseObject(json, DailyBusinessStats.class),
+                (from, to) -> {
+                    Map<LocalDate, DailyBusinessStats> map = new HashMap<>();
+                    for (DailyBusinessStats stats : dailyBusinessStatsMapper.list(from, to)) {
+                        map.put(stats.getStatDate(), stats);
+                    }
+                    return map;
+                },
+                date -> DailyBusinessStats.builder()
+                        .statDate(date)
+                        .turnover(BigDecimal.ZERO)
+                        .validOrderCount(0)
+                        .totalOrderCount(0)
+                        .newUsers(0)
+                        .build());
+    }
+
+    /**
+     * 删除指定日期的缓存
+     * @param dates
+     */
+    public void evict(Collection<LocalDate> dates) {
+        if (dates.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        for (LocalDate date : dates) {
+            keys.add(DAILY_STATS_KEY + date);
+        }
+        stringRedisTemplate.opsForValue().increment(DAILY_STATS_KEY + GENERATION_SUFFIX);
+        stringRedisTemplate.delete(keys);
+    }
+
+    /**
+     * 删除日期范围内的缓存
+     * @param begin
+     * @param end
+     */
+    public void evict(LocalDate begin, LocalDate end) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            dates.add(date);
+        }
+        evict(dates);
+    }
+
+    /**
+     * 批量读取每天的缓存，未命中的日期从最早到最晚合并为一次查询，结果写回缓存
+     * 今天之后的日期没有数据，不查询也不缓存；查询期间有缓存被删除时不写回
+     */
+    private <T> Map<LocalDate, T> getCells(String metric, String prefix, LocalDate begin, LocalDate end,
+                                           Function<String, T> decoder,
+                                           BiFunction<LocalDate, LocalDate, Map<LocalDate, T>> loader,
+                                           Function<LocalDate, T> empty) {
+        LocalDate today = LocalDate.now();
+        LocalDate lastCached = end.isAfter(today) ? today : end;
+        List<LocalDate> dates = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        keys.add(prefix + GENERATION_SUFFIX);
+        for (LocalDate date = begin; !date.isAfter(lastCached); date = date.plusDays(1)) {
+            dates.add(date);
+            keys.add(prefix + date);
+        }
+
+        Map<LocalDate, T> result = new LinkedHashMap<>();
+        List<LocalDate> missed = new ArrayList<>();
+        // 版本号和缓存一起读取，早于查询数据库
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        String generation = values == null || values.get(0) == null ? "0" : values.get(0);
+        for (int i = 0; i < dates.size(); i++) {
+            String value = values == null ? null : values.get(i + 1);
+            if (value == null) {
+                missed.add(dates.get(i));
+                result.put(dates.get(i), null);
+            } else {
+                result.put(dates.get(i), decoder.apply(value));
+            }
+        }
+        counter(metric, "hit").increment(dates.size() - missed.size());
+        counter(metric, "miss").increment(missed.size());
+
+        if (!missed.isEmpty()) {
+            Map<LocalDate, T> loaded = loader.apply(missed.get(0), missed.get(missed.size() - 1));
+            LocalDate recent = today.minusDays(1);
+            List<String> writeKeys = new ArrayList<>();
+            List<String> args = new ArrayList<>();
+            writeKeys.add(prefix + GENERATION_SUFFIX);
+            args.add(generation);
+            for (LocalDate date : missed) {
+                T value = loaded.getOrDefault(date, empty.apply(date));
+                result.put(date, value);
+                writeKeys.add(prefix + date);
+                args.add(JSON.toJSONString(value));
+                args.add(String.valueOf(date.isBefore(recent)
+                        ? reportCacheProperties.getHistoryTtl() : reportCacheProperties.getRecentTtl()));
+            }
+            stringRedisTemplate.execute(WRITE_BACK_SCRIPT, writeKeys, args.toArray());
+        }
+
+        LocalDate firstFuture = lastCached.isBefore(begin) ? begin : lastCached.plusDays(1);
+        for (LocalDate date = firstFuture; !date.isAfter(end); date = date.plusDays(1)) {
+            result.put(date, empty.apply(date));
+        }
+        return result;
+    }
+
+    private Counter counter(String metric, String result) {
+        return Counter.builder("sky.report.cache")
+                .description("报表按天缓存的命中次数")
+                .tag("metric", metric)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,306 @@
+package com.sky.report;
+
+import com.sky.entity.Dish;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Setmeal;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.vo.DailySales;
+import com.sky.vo.SalesTop10;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 菜品和套餐销量排行
+ * 每天一个Redis有序集合，成员为菜品或套餐(d:菜品id、s:套餐id)，分数为按结账日期统计的已完成订单中的销量，
+ * 订单完成后增量更新，按id而不是名称统计，菜品改名不会拆分销量
+ * 有序集合完整的日期记录补齐标记：更早的日期在首次查询时按数据库补齐；
+ * 今天和昨天的数据仍在变化，不补齐，由每天零点的任务标记当天从空集合开始计数，未标记时查询数据库
+ * 增量更新在事务提交后执行，可能丢失，也可能与按数据库重建的结果重复计算，最近三天由定时任务按数据库重建校准；
+ * 更早的日期不再增量更新，有订单迟到完成时递增该日期的版本号并删除补齐标记，下次查询时重新补齐，
+ * 补齐前读取版本号，写入时版本号已变化说明期间有订单完成，放弃本次结果
+ */
+@Component
+@Slf4j
+public class SalesRanking {
+
+    private static final String KEY = "sales:rank:";
+    private static final String FILLED_KEY = "sales:rank:filled:";
+    private static final String TEMP_KEY = "sales:rank:tmp:";
+    private static final String GENERATION_KEY = "sales:rank:gen:";
+    // 定时按数据库校准的天数(含今天)，覆盖仍在增量更新的今天和昨天，以及刚停止增量更新的前天
+    private static final int RECONCILE_DAYS = 3;
+
+    // 版本号未变化时用临时集合替换当天的有序集合并标记为已补齐，否则丢弃临时集合
+    // KEYS: 临时集合、有序集合、补齐标记、版本号  ARGV: 补齐前读取的版本号
+    private static final DefaultRedisScript<Long> REPLACE_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('get', KEYS[4]) or '0') ~= ARGV[1] then " +
+                    "redis.call('del', KEYS[1]) return 0 end " +
+            "if redis.call('exists', KEYS[1]) == 1 then " +
+                    "redis.call('rename', KEYS[1], KEYS[2]) redis.call('persist', KEYS[2]) " +
+            "else redis.call('del', KEYS[2]) end " +
+            "redis.call('set', KEYS[3], '1') return 1",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private OrderDetailMapper orderDetailMapper;
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+
+    /**
+     * 菜品或套餐在有序集合中的成员
+     * @param dishId
+     * @param setmealId
+     * @return
+     */
+    public static String member(Long dishId, Long setmealId) {
+        return dishId != null ? "d:" + dishId : "s:" + setmealId;
+    }
+
+    /**
+     * 累加指定结账日期的销量，今天和昨天之前的日期改为使补齐结果失效
+     * @param date
+     * @param sales 成员到销量的映射
+     */
+    public void increment(LocalDate date, Map<String, Long> sales) {
+        if (date.isBefore(LocalDate.now().minusDays(1))) {
+            stringRedisTemplate.opsForValue().increment(GENERATION_KEY + date);
+            stringRedisTemplate.delete(FILLED_KEY + date);
+            return;
+        }
+        ZSetOperations<String, String> zSet = stringRedisTemplate.opsForZSet();
+        sales.forEach((member, number) -> zSet.incrementScore(KEY + date, member, number));
+    }
+
+    /**
+     * 每天零点标记当天的销量从空集合开始计数，当天的有序集合是完整的
+     */
+    @Scheduled(cron = "0 0 0 * * ?")
+    public void markToday() {
+        stringRedisTemplate.opsForValue().set(FILLED_KEY + LocalDate.now(), "1");
+    }
+
+    /**
+     * 定时按数据库重建最近三天的有序集合，修正丢失或重复的增量更新，默认每5分钟一次
+     */
+    @Scheduled(initialDelay = 60 * 1000, fixedDelayString = "${sky.report.sales.reconcile-interval:300000}")
+    public void reconcileRecent() {
+        try {
+            LocalDate today = LocalDate.now();
+            List<LocalDate> dates = new ArrayList<>();
+            for (LocalDate date = today.minusDays(RECONCILE_DAYS - 1); !date.isAfter(today); date = date.plusDays(1)) {
+                dates.add(date);
+            }
+            List<String> generations = generations(dates);
+            Map<LocalDate, Map<String, Long>> loaded = load(dates);
+            for (int i = 0; i < dates.size(); i++) {
+                LocalDate date = dates.get(i);
+                replace(date, loaded.getOrDefault(date, new HashMap<>()), generations.get(i));
+            }
+        } catch (Exception e) {
+            log.error("销量排行校准失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 查询日期范围内销量排名靠前的菜品和套餐
+     * 已补齐的日期通过ZUNIONSTORE合并，未补齐的日期合并为一次数据库查询
+     * @param begin
+     * @param end
+     * @param limit
+     * @return
+     */
+    public List<SalesTop10> top(LocalDate begin, LocalDate end, int limit) {
+        LocalDate today = LocalDate.now();
+        LocalDate last = end.isAfter(today) ? today : end;
+        if (begin.isAfter(last)) {
+            return new ArrayList<>();
+        }
+        List<LocalDate> dates = new ArrayList<>();
+        List<String> filledKeys = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(last); date = date.plusDays(1)) {
+            dates.add(date);
+            filledKeys.add(FILLED_KEY + date);
+        }
+        List<String> filled = stringRedisTemplate.opsForValue().multiGet(filledKeys);
+
+        List<String> keys = new ArrayList<>();
+        List<LocalDate> missed = new ArrayList<>();
+        for (int i = 0; i < dates.size(); i++) {
+            if (filled != null && filled.get(i) != null) {
+                keys.add(KEY + dates.get(i));
+            } else {
+                missed.add(dates.get(i));
+            }
+        }
+
+        ZSetOperations<String, String> zSet = stringRedisTemplate.opsForZSet();
+        Map<String, Long> fallback = new HashMap<>();
+        if (!missed.isEmpty()) {
+            // 版本号在查询数据库之前读取
+            List<String> generations = generations(missed);
+            Map<LocalDate, Map<String, Long>> loaded = load(missed);
+            LocalDate recent = today.minusDays(1);
+            for (int i = 0; i < missed.size(); i++) {
+                LocalDate date = missed.get(i);
+                Map<String, Long> sales = loaded.getOrDefault(date, new HashMap<>());
+                if (date.isBefore(recent) && replace(date, sales, generations.get(i))) {
+                    log.info("销量排行补齐，日期: {}，菜品和套餐数: {}", date, sales.size());
+                    keys.add(KEY + date);
+                } else {
+                    sales.forEach((member, number) -> fallback.merge(member, number, Long::sum));
+                }
+            }
+        }
+
+        String tempKey = TEMP_KEY + UUID.randomUUID();
+        try {
+            if (!keys.isEmpty()) {
+                zSet.unionAndStore(keys.get(0), keys.subList(1, keys.size()), tempKey);
+            }
+            fallback.forEach((member, number) -> zSet.incrementScore(tempKey, member, number));
+            stringRedisTemplate.expire(tempKey, 60, TimeUnit.SECONDS);
+            Set<ZSetOperations.TypedTuple<String>> top = zSet.reverseRangeWithScores(tempKey, 0, limit - 1);
+            Map<String, Long> ranking = new LinkedHashMap<>();
+            if (top != null) {
+                for (ZSetOperations.TypedTuple<String> tuple : top) {
+                    ranking.put(tuple.getValue(), tuple.getScore().longValue());
+                }
+            }
+            return toSalesTop10(ranking);
+        } finally {
+            stringRedisTemplate.delete(tempKey);
+        }
+    }
+
+    /**
+     * 读取日期的版本号，没有订单迟到完成过的日期为"0"
+     */
+    private List<String> generations(List<LocalDate> dates) {
+        List<String> keys = new ArrayList<>();
+        for (LocalDate date : dates) {
+            keys.add(GENERATION_KEY + date);
+        }
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        List<String> generations = new ArrayList<>();
+        for (int i = 0; i < dates.size(); i++) {
+            String value = values == null ? null : values.get(i);
+            generations.add(value == null ? "0" : value);
+        }
+        return generations;
+    }
+
+    /**
+     * 按数据库统计日期的销量，从最早到最晚合并为一次查询
+     * @param dates 按日期排序
+     */
+    private Map<LocalDate, Map<String, Long>> load(List<LocalDate> dates) {
+        Set<LocalDate> dateSet = new HashSet<>(dates);
+        Map<LocalDate, Map<String, Long>> loaded = new HashMap<>();
+        for (DailySales sales : orderDetailMapper.salesByCheckoutDate(
+                dates.get(0), dates.get(dates.size() - 1).plusDays(1))) {
+            if (dateSet.contains(sales.getDate())) {
+                loaded.computeIfAbsent(sales.getDate(), date -> new HashMap<>())
+                        .merge(member(sales.getDishId(), sales.getSetmealId()), sales.getTotalNumber(), Long::sum);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 按数据库的统计结果替换指定日期的有序集合并标记为已补齐
+     * @param generation 查询数据库前读取的版本号
+     * @return 版本号已变化时放弃替换，返回false
+     */
+    private boolean replace(LocalDate date, Map<String, Long> sales, String generation) {
+        String tempKey = TEMP_KEY + UUID.randomUUID();
+        if (!sales.isEmpty()) {
+            Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+            sales.forEach((member, number) ->
+                    tuples.add(new DefaultTypedTuple<>(member, number.doubleValue())));
+            stringRedisTemplate.opsForZSet().add(tempKey, tuples);
+            stringRedisTemplate.expire(tempKey, 60, TimeUnit.SECONDS);
+        }
+        Long result = stringRedisTemplate.execute(REPLACE_SCRIPT,
+                Arrays.asList(tempKey, KEY + date, FILLED_KEY + date, GENERATION_KEY + date), generation);
+        return result != null && result == 1;
+    }
+
+    /**
+     * 按当前名称输出排行，已删除的菜品或套餐使用最近一次下单时的名称
+     */
+    private List<SalesTop10> toSalesTop10(Map<String, Long> ranking) {
+        List<Long> dishIds = new ArrayList<>();
+        List<Long> setmealIds = new ArrayList<>();
+        for (String member : ranking.keySet()) {
+            Long id = Long.valueOf(member.substring(2));
+            if (member.startsWith("d:")) {
+                dishIds.add(id);
+            } else {
+                setmealIds.add(id);
+            }
+        }
+        Map<String, String> names = new HashMap<>();
+        if (!dishIds.isEmpty()) {
+            for (Dish dish : dishMapper.getByIds(dishIds)) {
+                names.put(member(dish.getId(), null), dish.getName());
+            }
+        }
+        if (!setmealIds.isEmpty()) {
+            for (Setmeal setmeal : setmealMapper.getByIds(setmealIds)) {
+                names.put(member(null, setmeal.getId()), setmeal.getName());
+            }
+        }
+
+        // 已删除的菜品和套餐合并为一次查询
+        List<Long> deletedDishIds = new ArrayList<>();
+        List<Long> deletedSetmealIds = new ArrayList<>();
+        for (String member : ranking.keySet()) {
+            if (!names.containsKey(member)) {
+                Long id = Long.valueOf(member.substring(2));
+                if (member.startsWith("d:")) {
+                    deletedDishIds.add(id);
+                } else {
+                    deletedSetmealIds.add(id);
+                }
+            }
+        }
+        if (!deletedDishIds.isEmpty() || !deletedSetmealIds.isEmpty()) {
+            for (OrderDetail detail : orderDetailMapper.getLatestNames(deletedDishIds, deletedSetmealIds)) {
+                names.put(member(detail.getDishId(), detail.getSetmealId()), detail.getName());
+            }
+        }
+
+        List<SalesTop10> list = new ArrayList<>();
+        ranking.forEach((member, number) -> {
+            SalesTop10 salesTop10 = new SalesTop10();
+            salesTop10.setName(names.get(member));
+            salesTop10.setTotalNumber(number);
+            list.add(salesTop10);
+        });
+        return list;
+    }
+}
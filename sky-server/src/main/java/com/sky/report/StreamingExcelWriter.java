@@ -0,0 +1,109 @@
+package com.sky.report;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 基于SXSSF的流式Excel写入
+ * 模版中已有的行仍在内存中，可通过getTemplateSheet修改；新追加的行只在内存中保留rowWindow行，
+ * 超出窗口的行刷到临时文件，内存占用与总行数无关
+ * 追加的行号必须大于模版sheet中已有的最后一行
+ */
+public class StreamingExcelWriter implements Closeable {
+
+    // 单个sheet的最大行数
+    public static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final SXSSFWorkbook workbook;
+
+    /**
+     * @param template  模版文件
+     * @param rowWindow 每个sheet在内存中保留的行数
+     */
+    public StreamingExcelWriter(InputStream template, int rowWindow) throws IOException {
+        this.workbook = new SXSSFWorkbook(new XSSFWorkbook(template), rowWindow);
+        // 临时文件使用gzip压缩，避免大报表占满磁盘
+        this.workbook.setCompressTempFiles(true);
+    }
+
+    /**
+     * 获取模版中的sheet，用于填充模版中已有的单元格
+     * @param name
+     * @return
+     */
+    public XSSFSheet getTemplateSheet(String name) {
+        return workbook.getXSSFWorkbook().getSheet(name);
+    }
+
+    /**
+     * 获取用于流式追加行的sheet，不存在时创建
+     * @param name
+     * @return
+     */
+    public SXSSFSheet getSheet(String name) {
+        SXSSFSheet sheet = workbook.getSheet(name);
+        return sheet != null ? sheet : workbook.createSheet(name);
+    }
+
+    public CellStyle createCellStyle() {
+        return workbook.createCellStyle();
+    }
+
+    /**
+     * 写入一行数据
+     * @param sheet       目标sheet
+     * @param rowIndex    行号
+     * @param firstColumn 第一个值所在的列
+     * @param styles      每列的样式，为空时使用默认样式
+     * @param values      单元格的值，数字按数值写入，其他按文本写入
+     */
+    public void writeRow(Sheet sheet, int rowIndex, int firstColumn, CellStyle[] styles, Object... values) {
+        Row row = sheet.createRow(rowIndex);
+        for (int i = 0; i < values.length; i++) {
+            Cell cell = row.createCell(firstColumn + i);
+            if (styles != null && i < styles.length && styles[i] != null) {
+                cell.setCellStyle(styles[i]);
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value instanceof Number) {
+                cell.setCellValue(((Number) value).doubleValue());
+            } else if (value instanceof LocalDateTime) {
+                cell.setCellValue(((LocalDateTime) value).format(DATE_TIME_FORMATTER));
+            } else {
+                cell.setCellValue(value.toString());
+            }
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        workbook.write(out);
+    }
+
+    /**
+     * 关闭工作簿并删除临时文件
+     */
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+}
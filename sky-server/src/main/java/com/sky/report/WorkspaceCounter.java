@@ -0,0 +1,176 @@
+package com.sky.report;
+
+import com.sky.entity.DailyBusinessStats;
+import com.sky.entity.Orders;
+import com.sky.mapper.DailyBusinessStatsMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.vo.SqlOrderStatistics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工作台实时计数器
+ * 每天一个Redis哈希，记录按结账日期统计的营业额、有效订单数、订单总数、各状态订单数和新增用户数，
+ * 订单状态流转和用户注册后通过HINCRBY增量更新，工作台直接读取，不需要查询数据库
+ * 增量更新在事务提交后执行，进程异常退出时可能丢失，由定时任务按数据库重新校准
+ */
+@Component
+@Slf4j
+public class WorkspaceCounter {
+
+    public static final String TURNOVER = "turnover"; //营业额(分)
+    public static final String VALID_ORDERS = "validOrders";
+    public static final String TOTAL_ORDERS = "totalOrders";
+    public static final String NEW_USERS = "newUsers";
+    private static final String STATUS_PREFIX = "status:";
+    // 计数器已按数据库校准过的标记，没有该标记时说明计数器不完整(如Redis数据丢失)，需要先校准
+    private static final String READY = "ready";
+
+    private static final String KEY = "workspace:counter:";
+    // 计数器保留两天，跨天后前一天结账的订单完成时仍可更新
+    private static final long TTL_DAYS = 2;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private DailyBusinessStatsMapper dailyBusinessStatsMapper;
+
+    public static String status(Integer status) {
+        return STATUS_PREFIX + status;
+    }
+
+    /**
+     * 累加指定日期的计数器
+     * @param date 结账日期或注册日期
+     * @param deltas 字段到增量的映射
+     */
+    public void increment(LocalDate date, Map<String, Long> deltas) {
+        String key = KEY + date;
+        HashOperations<String, String, String> hash = stringRedisTemplate.opsForHash();
+        deltas.forEach((field, delta) -> {
+            if (delta != 0) {
+                hash.increment(key, field, delta);
+            }
+        });
+        stringRedisTemplate.expire(key, TTL_DAYS, TimeUnit.DAYS);
+    }
+
+    /**
+     * 读取今天的计数器，计数器不完整时先按数据库校准
+     * @return 字段到计数的映射，营业额单位为分
+     */
+    public Map<String, Long> today() {
+        LocalDate today = LocalDate.now();
+        HashOperations<String, String, String> hash = stringRedisTemplate.opsForHash();
+        Map<String, String> entries = hash.entries(KEY + today);
+        if (!entries.containsKey(READY)) {
+            return reconcile(today);
+        }
+        Map<String, Long> counters = new HashMap<>();
+        entries.forEach((field, value) -> counters.put(field, Long.valueOf(value)));
+        return counters;
+    }
+
+    /**
+     * 定时按数据库校准今天的计数器，默认每5分钟一次
+     */
+    @Scheduled(initialDelay = 60 * 1000, fixedDelayString = "${sky.workspace.reconcile-interval:300000}")
+    public void reconcileToday() {
+        try {
+            reconcile(LocalDate.now());
+        } catch (Exception e) {
+            log.error("工作台计数器校准失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按数据库重新计算指定日期的计数器并覆盖Redis中的值
+     * 计算期间的增量更新可能被覆盖，下次校准时修正
+     * @param date
+     * @return
+     */
+    public Map<String, Long> reconcile(LocalDate date) {
+        Map<String, Long> counters = new HashMap<>();
+        List<DailyBusinessStats> statsList = dailyBusinessStatsMapper.list(date, date);
+        if (statsList.isEmpty()) {
+            counters.put(TURNOVER, 0L);
+            counters.put(VALID_ORDERS, 0L);
+            counters.put(TOTAL_ORDERS, 0L);
+            counters.put(NEW_USERS, 0L);
+        } else {
+            DailyBusinessStats stats = statsList.get(0);
+            counters.put(TURNOVER, toCents(stats.getTurnover()));
+            counters.put(VALID_ORDERS, stats.getValidOrderCount().longValue());
+            counters.put(TOTAL_ORDERS, stats.getTotalOrderCount().longValue());
+            counters.put(NEW_USERS, stats.getNewUsers().longValue());
+        }
+        counters.putAll(statusCounts(date));
+
+        String key = KEY + date;
+        HashOperations<String, String, String> hash = stringRedisTemplate.opsForHash();
+        Map<String, String> previous = hash.entries(key);
+        Map<String, String> values = new HashMap<>();
+        counters.forEach((field, value) -> values.put(field, String.valueOf(value)));
+        if (previous.containsKey(READY)) {
+            values.forEach((field, value) -> {
+                if (!value.equals(previous.get(field))) {
+                    log.warn("工作台计数器与数据库不一致，日期: {}，字段: {}，计数器: {}，数据库: {}",
+                            date, field, previous.get(field), value);
+                }
+            });
+        }
+        values.put(READY, "1");
+        hash.putAll(key, values);
+        stringRedisTemplate.expire(key, TTL_DAYS, TimeUnit.DAYS);
+        return counters;
+    }
+
+    /**
+     * 按数据库重新统计指定日期各状态的订单数并覆盖Redis中的值
+     * 流转前状态未知时无法计算各状态的增量，改为重新统计
+     * @param date 结账日期
+     */
+    public void reconcileStatuses(LocalDate date) {
+        Map<String, String> values = new HashMap<>();
+        statusCounts(date).forEach((field, value) -> values.put(field, String.valueOf(value)));
+        String key = KEY + date;
+        HashOperations<String, String, String> hash = stringRedisTemplate.opsForHash();
+        hash.putAll(key, values);
+        stringRedisTemplate.expire(key, TTL_DAYS, TimeUnit.DAYS);
+    }
+
+    /**
+     * 查询指定日期结账的订单中各状态的订单数
+     * @param date
+     * @return 状态字段到订单数的映射
+     */
+    private Map<String, Long> statusCounts(LocalDate date) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Integer status : new Integer[]{Orders.TO_BE_CONFIRMED, Orders.CONFIRMED,
+                Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED, Orders.CANCELLED}) {
+            counts.put(status(status), 0L);
+        }
+        for (SqlOrderStatistics statistic : orderMapper.statistics(date, date.plusDays(1))) {
+            counts.put(status(statistic.getStatus()), statistic.getCount().longValue());
+        }
+        return counts;
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValue();
+    }
+}
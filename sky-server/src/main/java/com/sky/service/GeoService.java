@@ -0,0 +1,41 @@
+package com.sky.service;
+
+import com.sky.entity.AddressBook;
+import com.sky.vo.LocationVO;
+
+public interface GeoService {
+
+    /**
+     * 获取店铺经纬度坐标
+     * @return
+     */
+    LocationVO getShopLocation();
+
+    /**
+     * 地址解析，获取地址的经纬度坐标
+     * @param address
+     * @return
+     */
+    LocationVO geocode(String address);
+
+    /**
+     * 驾车路线规划，获取两点间的驾车距离
+     * @param origin 起点
+     * @param destination 终点
+     * @return 驾车距离(米)
+     */
+    Integer drivingDistance(LocationVO origin, LocationVO destination);
+
+    /**
+     * 解析地址簿的经纬度坐标并计算到店铺的配送距离，结果保存到地址簿
+     * @param addressBook
+     * @return 配送距离(米)
+     */
+    Integer resolveAddressBook(AddressBook addressBook);
+
+    /**
+     * 异步解析地址簿的经纬度坐标和配送距离
+     * @param addressBookId
+     */
+    void resolveAddressBookAsync(Long addressBookId);
+}
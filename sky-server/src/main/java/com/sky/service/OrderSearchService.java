@@ -0,0 +1,27 @@
+package com.sky.service;
+
+import com.sky.entity.Orders;
+
+import java.util.List;
+
+public interface OrderSearchService {
+
+    /**
+     * 为订单的订单号和手机号建立搜索索引
+     * @param orders
+     */
+    void index(Orders orders);
+
+    /**
+     * 根据订单号和手机号片段查询候选订单id
+     * @param number 订单号片段，可以为空
+     * @param phone 手机号片段，可以为空
+     * @return 无法使用索引时(片段过短、候选过多或索引未就绪)返回null
+     */
+    List<Long> candidateIds(String number, String phone);
+
+    /**
+     * 为历史订单补建搜索索引，补建完成前查询不使用索引
+     */
+    void rebuild();
+}
@@ -0,0 +1,31 @@
+package com.sky.service;
+
+import com.sky.vo.ReportExportJobVO;
+
+import javax.servlet.http.HttpServletResponse;
+import java.time.LocalDate;
+
+public interface ReportExportService {
+
+    /**
+     * 提交报表导出任务
+     * @param begin 开始日期
+     * @param end 结束日期
+     * @return 任务id
+     */
+    String submit(LocalDate begin, LocalDate end);
+
+    /**
+     * 查询导出任务的状态和进度
+     * @param jobId
+     * @return
+     */
+    ReportExportJobVO getJob(String jobId);
+
+    /**
+     * 下载已完成的导出文件
+     * @param jobId
+     * @param response
+     */
+    void download(String jobId, HttpServletResponse response);
+}
@@ -1,21 +1,55 @@
 package com.sky.service;
 
+import com.sky.enumeration.TimeGranularity;
 import com.sky.vo.OrderReportVO;
 import com.sky.vo.SalesTop10ReportVO;
 import com.sky.vo.TurnoverReportVO;
 import com.sky.vo.UserReportVO;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
 
 public interface ReportService {
-    TurnoverReportVO turnoverStatistics(LocalDate begin, LocalDate end);
+    TurnoverReportVO turnoverStatistics(LocalDate begin, LocalDate end, TimeGranularity granularity);
 
-    UserReportVO userStatistics(LocalDate begin, LocalDate end);
+    UserReportVO userStatistics(LocalDate begin, LocalDate end, TimeGranularity granularity);
 
-    OrderReportVO ordersStatistics(LocalDate begin, LocalDate end);
+    OrderReportVO ordersStatistics(LocalDate begin, LocalDate end, TimeGranularity granularity);
 
     SalesTop10ReportVO top10(LocalDate begin, LocalDate end);
 
-    void exportExcel(HttpServletResponse response);
+    /**
+     * 在后台根据订单表和用户表重建每日和每小时运营数据汇总以及用户注册累计数，已有重建任务在执行时拒绝
+     * @param begin 开始日期，为空时从最早的数据开始
+     * @param end 结束日期，为空时到今天
+     * @return 任务id
+     */
+    String submitRebuild(LocalDate begin, LocalDate end);
+
+    /**
+     * 导出日期范围内的运营数据报表
+     * @param response
+     * @param begin 开始日期
+     * @param end 结束日期
+     */
+    void exportExcel(HttpServletResponse response, LocalDate begin, LocalDate end);
+
+    /**
+     * 校验导出的日期范围，不合法时抛出异常
+     * @param begin
+     * @param end
+     */
+    void checkExportRange(LocalDate begin, LocalDate end);
+
+    /**
+     * 生成日期范围内的运营数据报表并写入输出流
+     * @param out 输出流，由调用方关闭
+     * @param begin 开始日期
+     * @param end 结束日期
+     * @param progress 已写入的行数，可以为null
+     */
+    void writeExcel(OutputStream out, LocalDate begin, LocalDate end, AtomicLong progress) throws IOException;
 }
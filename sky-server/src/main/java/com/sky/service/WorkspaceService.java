@@ -1,15 +1,24 @@
 package com.sky.service;
 
+import com.sky.entity.DailyBusinessStats;
 import com.sky.vo.BusinessDataVO;
 import com.sky.vo.DishOverViewVO;
 import com.sky.vo.OrderOverViewVO;
 import com.sky.vo.SetmealOverViewVO;
 
 import java.time.LocalDate;
+import java.util.List;
 
 public interface WorkspaceService {
     BusinessDataVO getBusinessData(LocalDate begin, LocalDate end);
 
+    /**
+     * 汇总多天的运营数据
+     * @param statsList 每日运营数据汇总
+     * @return
+     */
+    BusinessDataVO sumBusinessData(List<DailyBusinessStats> statsList);
+
     OrderOverViewVO overviewOrders();
 
     DishOverViewVO overviewDishes();
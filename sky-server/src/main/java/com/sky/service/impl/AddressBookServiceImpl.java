@@ -4,6 +4,7 @@ import com.sky.context.BaseContext;
 import com.sky.entity.AddressBook;
 import com.sky.mapper.AddressBookMapper;
 import com.sky.service.AddressBookService;
+import com.sky.service.GeoService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,8 @@ import java.util.List;
 public class AddressBookServiceImpl implements AddressBookService {
     @Autowired
     private AddressBookMapper addressBookMapper;
+    @Autowired
+    private GeoService geoService;
 
     /**
      * 条件查询
@@ -35,6 +38,8 @@ public class AddressBookServiceImpl implements AddressBookService {
         addressBook.setUserId(BaseContext.getCurrentId());
         addressBook.setIsDefault(0);
         addressBookMapper.insert(addressBook);
+        //异步解析经纬度坐标和配送距离，下单时直接读取
+        geoService.resolveAddressBookAsync(addressBook.getId());
     }
 
     /**
@@ -55,6 +60,10 @@ public class AddressBookServiceImpl implements AddressBookService {
      */
     public void update(AddressBook addressBook) {
         addressBookMapper.update(addressBook);
+        //详细地址变更后重新解析经纬度坐标和配送距离
+        if (addressBook.getDetail() != null) {
+            geoService.resolveAddressBookAsync(addressBook.getId());
+        }
     }
 
     /**
@@ -9,6 +9,7 @@ import com.sky.context.BaseContext;
 import com.sky.dto.CategoryDTO;
 import com.sky.dto.CategoryPageQueryDTO;
 import com.sky.entity.Category;
+import com.sky.event.MenuChangedEvent;
 import com.sky.exception.DeletionNotAllowedException;
 import com.sky.mapper.CategoryMapper;
 import com.sky.mapper.DishMapper;
@@ -18,11 +19,14 @@ import com.sky.service.CategoryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 分类业务层
@@ -37,6 +41,8 @@ public class CategoryServiceImpl implements CategoryService {
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
 
     /**
      * 新增分类
@@ -51,6 +57,7 @@ public class CategoryServiceImpl implements CategoryService {
         category.setStatus(StatusConstant.DISABLE);
 
         categoryMapper.insert(category);
+        applicationEventPublisher.publishEvent(new MenuChangedEvent("新增分类"));
     }
 
     /**
@@ -86,6 +93,7 @@ public class CategoryServiceImpl implements CategoryService {
 
         //删除分类数据
         categoryMapper.deleteById(id);
+        applicationEventPublisher.publishEvent(new MenuChangedEvent("删除分类"));
     }
 
     /**
@@ -101,6 +109,7 @@ public class CategoryServiceImpl implements CategoryService {
 //        category.setUpdateUser(BaseContext.getCurrentId());
 
         categoryMapper.update(category);
+        applicationEventPublisher.publishEvent(new MenuChangedEvent("修改分类"));
     }
 
     /**
@@ -116,6 +125,8 @@ public class CategoryServiceImpl implements CategoryService {
                 .updateTime(LocalDateTime.now())
                 .updateUser(BaseContext.getCurrentId())
                 .build();
+        Set<Long> dishCategoryIds = Collections.emptySet();
+        Set<Long> setmealCategoryIds = Collections.emptySet();
         //禁用分类后，关联的菜品和套餐也要禁用
         if(StatusConstant.DISABLE.equals(status)){
             Integer type =  categoryMapper.getTypeById(id);
@@ -123,14 +134,18 @@ public class CategoryServiceImpl implements CategoryService {
             if (type.equals(CategoryTypeConstant.DISH)) {
                 //禁用关联的菜品
                 dishMapper.updateStatusByCategoryId(StatusConstant.DISABLE, id);
+                dishCategoryIds = Collections.singleton(id);
             }else {
                 //禁用关联的套餐
                 setmealMapper.updateStatusByCategoryId(StatusConstant.DISABLE, id);
+                setmealCategoryIds = Collections.singleton(id);
             }
 
         }
 
         categoryMapper.update(category);
+        applicationEventPublisher.publishEvent(new MenuChangedEvent("分类启用、禁用",
+                dishCategoryIds, setmealCategoryIds));
     }
 
     /**
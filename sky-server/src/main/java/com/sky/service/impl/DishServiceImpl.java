@@ -2,6 +2,7 @@ package com.sky.service.impl;
 
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.cache.MenuCacheInvalidator;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.dto.DishDTO;
@@ -9,6 +10,7 @@ import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
 import com.sky.entity.DishFlavor;
 import com.sky.entity.SetmealDish;
+import com.sky.event.MenuChangedEvent;
 import com.sky.exception.DeletionNotAllowedException;
 import com.sky.mapper.*;
 import com.sky.result.PageResult;
@@ -16,11 +18,16 @@ import com.sky.service.DishService;
 import com.sky.vo.DishVO;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 @Service
@@ -40,6 +47,12 @@ public class DishServiceImpl implements DishService {
     @Autowired
     private SetmealMapper setmealMapper;
 
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private MenuCacheInvalidator menuCacheInvalidator;
+
     /**
      *插入菜品及其口味信息
      * @param dishDto 菜品数据传输对象
@@ -53,6 +66,8 @@ public class DishServiceImpl implements DishService {
         // 属性拷贝
         BeanUtils.copyProperties(dishDto, dish);
         dishMapper.insert(dish);
+        applicationEventPublisher.publishEvent(new MenuChangedEvent("新增菜品",
+                Collections.singleton(dish.getCategoryId()), Collections.emptySet()));
 
         List<DishFlavor> flavors = dishDto.getFlavors();
         if (flavors != null && !flavors.isEmpty()) {
@@ -99,8 +114,12 @@ public class DishServiceImpl implements DishService {
         if (!setmealDishes.isEmpty()) {
             throw new DeletionNotAllowedException(MessageConstant.DISH_BE_RELATED_BY_SETMEAL);
         }
+        // 删除前记录菜品所在的分类
+        Set<Long> categoryIds = menuCacheInvalidator.dishCategoryIds(ids);
         // 批量删除菜品
         dishMapper.deleteBatch(ids);
+        applicationEventPublisher.publishEvent(new MenuChangedEvent("删除菜品",
+                categoryIds, Collections.emptySet()));
         // 批量删除菜品口味
         dishFlavorMapper.deleteBatchByDishIds(ids);
 
@@ -120,6 +139,7 @@ public class DishServiceImpl implements DishService {
         dish.setId(id);
         // 更新菜品状态
         dishMapper.update(dish);
+        Set<Long> setmealCategoryIds = Collections.emptySet();
         //如果是停售状态，套餐也要停售
         if (status.equals(StatusConstant.DISABLE)) {
             // 停售套餐
@@ -128,9 +148,12 @@ public class DishServiceImpl implements DishService {
             if (setmealIds != null && !setmealIds.isEmpty()) {
                 //批量停售套餐
                 setmealMapper.updateStatusByIds(StatusConstant.DISABLE, setmealIds);
+                setmealCategoryIds = menuCacheInvalidator.setmealCategoryIds(setmealIds);
             }
 
         }
+        applicationEventPublisher.publishEvent(new MenuChangedEvent("菜品起售、停售",
+                menuCacheInvalidator.dishCategoryIds(Collections.singletonList(id)), setmealCategoryIds));
 
     }
 
@@ -141,10 +164,17 @@ public class DishServiceImpl implements DishService {
     @Override
     @Transactional
     public void update(DishDTO dishDTO) {
+        // 修改前记录菜品所在的分类，换分类时原分类和新分类的缓存都要清除
+        Set<Long> categoryIds = menuCacheInvalidator.dishCategoryIds(Collections.singletonList(dishDTO.getId()));
+        if (dishDTO.getCategoryId() != null) {
+            categoryIds.add(dishDTO.getCategoryId());
+        }
         //更新dish
         Dish dish = new Dish();
         BeanUtils.copyProperties(dishDTO,dish);
         dishMapper.update(dish);
+        applicationEventPublisher.publishEvent(new MenuChangedEvent("修改菜品",
+                categoryIds, Collections.emptySet()));
 
 
         //更新菜品口味
@@ -194,15 +224,24 @@ public class DishServiceImpl implements DishService {
         List<Dish> dishList = dishMapper.list(dish);
 
         List<DishVO> dishVOList = new ArrayList<>();
+        if (dishList.isEmpty()) {
+            return dishVOList;
+        }
+
+        //一次查询所有菜品的口味，按菜品id分组
+        List<Long> dishIds = new ArrayList<>();
+        for (Dish d : dishList) {
+            dishIds.add(d.getId());
+        }
+        Map<Long, List<DishFlavor>> flavorMap = new HashMap<>();
+        for (DishFlavor flavor : dishFlavorMapper.getByDishIds(dishIds)) {
+            flavorMap.computeIfAbsent(flavor.getDishId(), id -> new ArrayList<>()).add(flavor);
+        }
 
         for (Dish d : dishList) {
             DishVO dishVO = new DishVO();
             BeanUtils.copyProperties(d,dishVO);
-
-            //根据菜品id查询对应的口味
-            List<DishFlavor> flavors = dishFlavorMapper.getByDishId(d.getId());
-
-            dishVO.setFlavors(flavors);
+            dishVO.setFlavors(flavorMap.getOrDefault(d.getId(), new ArrayList<>()));
             dishVOList.add(dishVO);
         }
 
@@ -0,0 +1,226 @@
+package com.sky.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.sky.constant.MessageConstant;
+import com.sky.entity.AddressBook;
+import com.sky.exception.OrderBusinessException;
+import com.sky.mapper.AddressBookMapper;
+import com.sky.properties.GeoProperties;
+import com.sky.service.GeoService;
+import com.sky.utils.GeoUtil;
+import com.sky.utils.HttpClientUtil;
+import com.sky.utils.LruCache;
+import com.sky.vo.LocationVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 百度地图地理编码服务
+ * 店铺坐标启动时解析并定时刷新，收货地址坐标使用LRU缓存，避免每次下单都调用地图接口
+ */
+@Service
+@Slf4j
+public class GeoServiceImpl implements GeoService {
+
+    private static final String GEOCODING_URL = "https://api.map.baidu.com/geocoding/v3";
+    private static final String DRIVING_URL = "https://api.map.baidu.com/directionlite/v1/driving";
+
+    @Value("${sky.shop.address}")
+    private String shopAddress;
+    @Value("${sky.baidu.ak}")
+    private String ak;
+    @Autowired
+    private GeoProperties geoProperties;
+    @Autowired
+    private AddressBookMapper addressBookMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    //店铺经纬度坐标
+    private volatile LocationVO shopLocation;
+    //收货地址经纬度坐标缓存
+    private LruCache<String, LocationVO> addressCache;
+    //保存解析结果使用的独立事务
+    private TransactionTemplate requiresNewTransaction;
+
+    @PostConstruct
+    public void init() {
+        addressCache = new LruCache<>(geoProperties.getCacheSize(),
+                TimeUnit.MINUTES.toMillis(geoProperties.getCacheTtl()));
+        requiresNewTransaction = new TransactionTemplate(transactionManager);
+        requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 启动后解析店铺坐标，之后定时刷新，保证下单时店铺坐标常驻内存
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${sky.geo.shop-refresh-interval:3600000}")
+    public void refreshShopLocation() {
+        try {
+            shopLocation = requestLocation(shopAddress);
+            log.info("店铺坐标刷新成功: {}", shopLocation);
+        } catch (Exception e) {
+            // 刷新失败时保留旧坐标，下次下单或下次定时任务再重试
+            log.error("店铺坐标刷新失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取店铺经纬度坐标
+     * @return
+     */
+    @Override
+    public LocationVO getShopLocation() {
+        LocationVO location = shopLocation;
+        if (location == null) {
+            location = requestLocation(shopAddress);
+            if (location == null) {
+                throw new OrderBusinessException(MessageConstant.SHOP_ADDRESS_PARSE_FAILED);
+            }
+            shopLocation = location;
+        }
+        return location;
+    }
+
+    /**
+     * 地址解析，优先从缓存中获取
+     * @param address
+     * @return
+     */
+    @Override
+    public LocationVO geocode(String address) {
+        String key = address.trim();
+        LocationVO location = addressCache.get(key);
+        if (location != null) {
+            return location;
+        }
+        location = requestLocation(key);
+        if (location == null) {
+            throw new OrderBusinessException(MessageConstant.ADDRESS_PARSE_FAILED);
+        }
+        addressCache.put(key, location);
+        return location;
+    }
+
+    /**
+     * 驾车路线规划
+     * @param origin 起点
+     * @param destination 终点
+     * @return 驾车距离(米)
+     */
+    @Override
+    public Integer drivingDistance(LocationVO origin, LocationVO destination) {
+        Map<String, String> map = new HashMap<>();
+        map.put("origin", origin.toLatLng());
+        map.put("destination", destination.toLatLng());
+        map.put("steps_info", "0");
+        map.put("ak", ak);
+
+        String json = HttpClientUtil.doGet(DRIVING_URL, map);
+
+        JSONObject jsonObject = JSON.parseObject(json);
+        if (jsonObject == null || !"0".equals(jsonObject.getString("status"))) {
+            throw new OrderBusinessException(MessageConstant.ROUTE_PLANNING_FAILED);
+        }
+
+        //数据解析
+        JSONObject result = jsonObject.getJSONObject("result");
+        JSONArray jsonArray = (JSONArray) result.get("routes");
+        return ((JSONObject) jsonArray.get(0)).getInteger("distance");
+    }
+
+    /**
+     * 解析地址簿的经纬度坐标并计算配送距离
+     * 地图接口调用不在事务中，只有保存结果使用独立的短事务：调用地图接口期间不额外占用数据库连接，
+     * 下单因超出配送范围回滚时解析结果也不会丢失
+     * @param addressBook
+     * @return 配送距离(米)
+     */
+    @Override
+    public Integer resolveAddressBook(AddressBook addressBook) {
+        LocationVO shop = getShopLocation();
+        LocationVO location;
+        if (addressBook.getLat() != null && addressBook.getLng() != null) {
+            //修改详细地址时会清空坐标，已保存的坐标对应当前地址，店铺坐标变化后只需重新计算配送距离
+            location = new LocationVO(addressBook.getLat(), addressBook.getLng());
+        } else {
+            location = geocode(addressBook.getCityName() + addressBook.getDistrictName() + addressBook.getDetail());
+        }
+
+        Integer distance;
+        double straightDistance = GeoUtil.distance(shop.getLat(), shop.getLng(), location.getLat(), location.getLng());
+        if (straightDistance > geoProperties.getDeliveryRange()) {
+            //直线距离是驾车距离的下界，已超出配送范围时直接记录直线距离，无需调用路线规划接口
+            distance = (int) Math.ceil(straightDistance);
+        } else {
+            distance = drivingDistance(shop, location);
+        }
+
+        addressBook.setLat(location.getLat());
+        addressBook.setLng(location.getLng());
+        addressBook.setDistance(distance);
+        addressBook.setShopLocation(shop.toLatLng());
+        Integer updated = requiresNewTransaction.execute(status -> addressBookMapper.updateLocation(addressBook));
+        if (updated == null || updated == 0) {
+            log.info("地址簿在解析期间已修改，放弃旧地址的解析结果，地址簿id: {}", addressBook.getId());
+        }
+        return distance;
+    }
+
+    /**
+     * 异步解析地址簿的经纬度坐标和配送距离，在新增或修改地址后调用
+     * @param addressBookId
+     */
+    @Override
+    @Async
+    public void resolveAddressBookAsync(Long addressBookId) {
+        AddressBook addressBook = addressBookMapper.getById(addressBookId);
+        if (addressBook == null) {
+            return;
+        }
+        try {
+            resolveAddressBook(addressBook);
+        } catch (Exception e) {
+            // 解析失败时保持配送距离为空，下单时或后台任务会再次解析
+            log.warn("地址簿坐标解析失败，地址簿id: {}，原因: {}", addressBookId, e.getMessage());
+        }
+    }
+
+    /**
+     * 调用百度地图地理编码接口
+     * @param address
+     * @return 解析失败返回null
+     */
+    private LocationVO requestLocation(String address) {
+        Map<String, String> map = new HashMap<>();
+        map.put("address", address);
+        map.put("output", "json");
+        map.put("ak", ak);
+
+        String json = HttpClientUtil.doGet(GEOCODING_URL, map);
+
+        JSONObject jsonObject = JSON.parseObject(json);
+        if (jsonObject == null || !"0".equals(jsonObject.getString("status"))) {
+            log.warn("地址解析失败，地址: {}，响应: {}", address, json);
+            return null;
+        }
+
+        //数据解析
+        JSONObject location = jsonObject.getJSONObject("result").getJSONObject("location");
+        return new LocationVO(location.getDouble("lat"), location.getDouble("lng"));
+    }
+}
@@ -0,0 +1,224 @@
+package com.sky.service.impl;
+
+import com.sky.entity.OrderSearchIndex;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.OrderSearchIndexMapper;
+import com.sky.service.OrderSearchService;
+import com.sky.vo.GramPostingCount;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 订单搜索索引
+ * 订单号和手机号按3个字符的滑动窗口切分存入order_search_index，
+ * 子串查询时取出包含查询串片段的订单id作为候选，再由原有的like条件精确过滤
+ * 订单号有相同的时间戳前缀，手机号有相同的号段，这些片段几乎匹配所有订单，查询时只使用索引条数最少的几个片段
+ */
+@Service
+@Slf4j
+public class OrderSearchServiceImpl implements OrderSearchService {
+
+    // 片段长度，查询串短于该长度时无法使用索引
+    private static final int GRAM_SIZE = 3;
+    // 候选订单数上限，超过时索引的过滤效果有限，直接使用like查询
+    private static final int MAX_CANDIDATES = 1000;
+    // 统计片段索引条数时每个片段最多读取的条数，达到该数量的片段视为常见片段，不用于查询
+    private static final int MAX_GRAM_POSTINGS = 10000;
+    // 查询候选订单时最多使用的片段数
+    private static final int MAX_LOOKUP_GRAMS = 3;
+    // 重建索引时每批处理的订单数量
+    private static final int REBUILD_BATCH_SIZE = 500;
+    // 补建进度，已补建索引的最大订单id；新订单在下单事务中建立索引，补建只需要覆盖到启动时的最大订单id
+    private static final String REBUILT_KEY = "order:search:rebuilt";
+
+    @Autowired
+    private OrderSearchIndexMapper orderSearchIndexMapper;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 历史订单的索引补建完成前不使用索引
+    private volatile boolean ready;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * 为订单的订单号和手机号建立搜索索引
+     * @param orders
+     */
+    @Override
+    public void index(Orders orders) {
+        List<OrderSearchIndex> list = new ArrayList<>();
+        addGrams(list, orders);
+        if (!list.isEmpty()) {
+            orderSearchIndexMapper.insertBatch(list);
+        }
+    }
+
+    /**
+     * 根据订单号和手机号片段查询候选订单id
+     * @param number
+     * @param phone
+     * @return
+     */
+    @Override
+    public List<Long> candidateIds(String number, String phone) {
+        if (!ready) {
+            return null;
+        }
+        List<Long> result = null;
+        if (number != null && !number.isEmpty()) {
+            result = lookup(OrderSearchIndex.FIELD_NUMBER, number);
+            if (result == null) {
+                return null;
+            }
+        }
+        if (phone != null && !phone.isEmpty()) {
+            List<Long> ids = lookup(OrderSearchIndex.FIELD_PHONE, phone);
+            if (ids == null) {
+                return null;
+            }
+            if (result == null) {
+                result = ids;
+            } else {
+                // 同时按订单号和手机号查询时取交集
+                Set<Long> phoneIds = new HashSet<>(ids);
+                result.removeIf(id -> !phoneIds.contains(id));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 启动后在后台为历史订单补建索引，从上次的补建进度继续，已存在的索引会被忽略
+     */
+    @Override
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (ready || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Long maxId = orderMapper.getMaxId();
+            String rebuilt = stringRedisTemplate.opsForValue().get(REBUILT_KEY);
+            long lastId = rebuilt == null ? 0L : Long.parseLong(rebuilt);
+            if (maxId == null || lastId >= maxId) {
+                ready = true;
+                return;
+            }
+            long start = System.currentTimeMillis();
+            int count = 0;
+            List<Orders> list;
+            do {
+                list = orderMapper.listForSearchIndex(lastId, maxId, REBUILD_BATCH_SIZE);
+                List<OrderSearchIndex> indexList = new ArrayList<>();
+                for (Orders orders : list) {
+                    addGrams(indexList, orders);
+                }
+                if (!indexList.isEmpty()) {
+                    orderSearchIndexMapper.insertBatch(indexList);
+                }
+                if (!list.isEmpty()) {
+                    lastId = list.get(list.size() - 1).getId();
+                    count += list.size();
+                    stringRedisTemplate.opsForValue().set(REBUILT_KEY, String.valueOf(lastId));
+                }
+            } while (list.size() == REBUILD_BATCH_SIZE);
+            stringRedisTemplate.opsForValue().set(REBUILT_KEY, String.valueOf(maxId));
+            ready = true;
+            log.info("订单搜索索引补建完成，订单数: {}，耗时: {}ms", count, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("订单搜索索引补建失败，稍后重试: {}", e.getMessage());
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 补建失败时每分钟重试一次
+     */
+    @Scheduled(initialDelay = 60 * 1000, fixedDelay = 60 * 1000)
+    public void retryRebuild() {
+        if (!ready) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 查询包含查询串中最少见的几个片段的订单id
+     * @return 查询串过短、全部是常见片段或候选过多时返回null
+     */
+    private List<Long> lookup(Integer field, String term) {
+        Set<String> grams = grams(term.trim());
+        if (grams.isEmpty()) {
+            return null;
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        for (GramPostingCount count : orderSearchIndexMapper.countPostings(
+                field, new ArrayList<>(grams), MAX_GRAM_POSTINGS)) {
+            counts.put(count.getGram(), count.getCount());
+        }
+        List<String> selective = new ArrayList<>();
+        for (String gram : grams) {
+            int count = counts.getOrDefault(gram, 0);
+            if (count == 0) {
+                // 有片段没有任何订单包含，不可能匹配
+                return new ArrayList<>();
+            }
+            if (count < MAX_GRAM_POSTINGS) {
+                selective.add(gram);
+            }
+        }
+        if (selective.isEmpty()) {
+            return null;
+        }
+        selective.sort(Comparator.comparing(counts::get));
+        List<String> lookupGrams = new ArrayList<>(selective.subList(0, Math.min(MAX_LOOKUP_GRAMS, selective.size())));
+        List<Long> ids = orderSearchIndexMapper.listOrderIds(field, lookupGrams, MAX_CANDIDATES + 1);
+        if (ids.size() > MAX_CANDIDATES) {
+            return null;
+        }
+        return ids;
+    }
+
+    private void addGrams(List<OrderSearchIndex> list, Orders orders) {
+        for (String gram : grams(orders.getNumber())) {
+            list.add(new OrderSearchIndex(orders.getId(), OrderSearchIndex.FIELD_NUMBER, gram));
+        }
+        for (String gram : grams(orders.getPhone())) {
+            list.add(new OrderSearchIndex(orders.getId(), OrderSearchIndex.FIELD_PHONE, gram));
+        }
+    }
+
+    /**
+     * 按滑动窗口切分为长度为GRAM_SIZE的片段并去重
+     */
+    private static Set<String> grams(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (value == null) {
+            return grams;
+        }
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+}
@@ -1,11 +1,8 @@
 package com.sky.service.impl;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
-import com.sky.config.OrderDelayQueueConfig;
 import com.sky.constant.MessageConstant;
 import com.sky.context.BaseContext;
 import com.sky.dto.*;
@@ -20,22 +17,31 @@ import com.sky.mapper.AddressBookMapper;
 import com.sky.mapper.OrderDetailMapper;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.ShoppingCartMapper;
+import com.sky.properties.GeoProperties;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
+import com.sky.service.GeoService;
+import com.sky.service.OrderSearchService;
 import com.sky.service.OrderService;
 import com.sky.service.WorkspaceService;
-import com.sky.utils.HttpClientUtil;
+import com.sky.statemachine.OrderStateMachine;
+import com.sky.statemachine.OrderTransition;
+import com.sky.task.OrderTimeoutScheduler;
+import com.sky.utils.SnowflakeIdGenerator;
 import com.sky.vo.*;
 import com.sky.webSocket.WebSocketServer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -60,13 +66,17 @@ public class OrderServiceImpl implements OrderService {
 //    @Autowired
 //    private UserMapper userMapper;
     @Autowired
-    private RabbitTemplate rabbitTemplate;
-
-
-    @Value("${sky.shop.address}")
-    private String shopAddress;
-    @Value("${sky.baidu.ak}")
-    private String ak;
+    private OrderTimeoutScheduler orderTimeoutScheduler;
+    @Autowired
+    private GeoService geoService;
+    @Autowired
+    private GeoProperties geoProperties;
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+    @Autowired
+    private OrderSearchService orderSearchService;
 
     /**
      * 用户下单
@@ -89,7 +99,7 @@ public class OrderServiceImpl implements OrderService {
             throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
         }
         //3.检查地址是否超出配送范围
-        checkOutOfRange(addressBook.getCityName()+addressBook.getDistrictName()+addressBook.getDetail());
+        checkOutOfRange(addressBook);
 
         //向order表插入一条数据
         Orders order = new Orders();
@@ -99,11 +109,13 @@ public class OrderServiceImpl implements OrderService {
         order.setPayStatus(Orders.UN_PAID);
         order.setStatus(Orders.PENDING_PAYMENT);
         //设置订单号
-        order.setNumber(String.valueOf(System.currentTimeMillis()));
+        order.setNumber(String.valueOf(snowflakeIdGenerator.nextId()));
         order.setPhone(addressBook.getPhone());
         order.setAddress(addressBook.getDetail());
         order.setConsignee(addressBook.getConsignee());
         orderMapper.insert(order);
+        //建立订单号和手机号的搜索索引
+        orderSearchService.index(order);
         //向order_detail表插入多条数据
         List<OrderDetail> orderDetailList = new ArrayList<>();
         shoppingCartList.forEach(shoppingCart -> {
@@ -115,26 +127,13 @@ public class OrderServiceImpl implements OrderService {
         );
         orderDetailMapper.insertBatch(orderDetailList);
 
-        // ================== 新增：发送延迟消息 ==================
-        // 向延时队列中添加订单信息，设置延时时间为30分钟
+        //登记订单超时取消
         try {
-            System.out.println("发送延迟消息，订单号: " + order.getNumber() + ", 延时: " + OrderDelayQueueConfig.ORDER_TTL + "ms");
-            rabbitTemplate.convertAndSend(
-                    OrderDelayQueueConfig.ORDER_EXCHANGE_NORMAL,
-                    OrderDelayQueueConfig.ORDER_ROUTING_KEY_NORMAL,
-                    order.getNumber(), // 发送订单号
-                    message -> {
-                        // 设置消息的过期时间
-                        message.getMessageProperties().setExpiration(String.valueOf(OrderDelayQueueConfig.ORDER_TTL));
-                        return message;
-                    }
-            );
+            orderTimeoutScheduler.schedule(order.getNumber(), order.getOrderTime());
         } catch (Exception e) {
-            // 处理消息发送失败的情况，例如记录日志，或者后续通过定时任务补偿
-            log.error("发送订单超时延迟消息失败，订单好: {}", order.getNumber(), e);
+            // 登记失败时，待付款订单会在下次启动恢复时重新登记
+            log.error("登记订单超时取消失败，订单号: {}", order.getNumber(), e);
         }
-        // ======================================================
-
 
         //清空购物车
         shoppingCartMapper.cleanByUserId(BaseContext.getCurrentId());
@@ -185,16 +184,16 @@ public class OrderServiceImpl implements OrderService {
 
         // 根据订单号查询订单
         Orders ordersDB = orderMapper.getByNumber(outTradeNo);
+        if (ordersDB == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
 
-        // 根据订单id更新订单的状态、支付方式、支付状态、结账时间
+        // 更新订单的状态、支付方式、支付状态、结账时间，只有待付款的订单可以支付成功(可能已超时取消)
         Orders orders = Orders.builder()
-                .id(ordersDB.getId())
-                .status(Orders.TO_BE_CONFIRMED)
                 .payStatus(Orders.PAID)
                 .checkoutTime(LocalDateTime.now())
                 .build();
-
-        orderMapper.update(orders);
+        orderStateMachine.transition(ordersDB.getId(), OrderTransition.PAY, orders);
         // 发送消息通知商家订单支付成功
         webSocketServer.sendToAdmin(1,ordersDB.getId(),outTradeNo);
 
@@ -208,21 +207,25 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public PageResult<OrderVO> pageQuery(OrdersPageQueryDTO ordersPageQueryDTO) {
+        //按订单号、手机号搜索时先通过搜索索引得到候选订单id
+        List<Long> candidateIds = orderSearchService.candidateIds(ordersPageQueryDTO.getNumber(), ordersPageQueryDTO.getPhone());
+        ordersPageQueryDTO.setCandidateIds(candidateIds);
+        if (candidateIds != null && candidateIds.isEmpty()) {
+            return ordersPageQueryDTO.getCursor() != null
+                    ? new CursorPageResult<>(0L, new ArrayList<>(), null, false)
+                    : new PageResult<>(0L, new ArrayList<>());
+        }
+        //传入游标时使用游标分页
+        if (ordersPageQueryDTO.getCursor() != null) {
+            return cursorPageQuery(ordersPageQueryDTO);
+        }
         //设置分页参数
         PageHelper.startPage(ordersPageQueryDTO.getPage(), ordersPageQueryDTO.getPageSize());
         //查询订单列表
         Page<OrderVO> Page = orderMapper.ordersPageQuery(ordersPageQueryDTO);
-        //为每个订单查询订单菜品详情
+        //批量查询本页所有订单的菜品详情
         if (Page != null && Page.getResult() != null && !Page.getResult().isEmpty()) {
-            for (OrderVO orderVO : Page.getResult()) {
-                //查询订单详情
-                List<OrderDetail> orderDetails = orderDetailMapper.getByOrderId(orderVO.getId());
-                orderVO.setOrderDetailList(orderDetails);
-                //将订单详情列表转换为JSON字符串
-                String jsonString = convertListToJsonString(orderDetails);
-                orderVO.setOrderDishes(jsonString);
-
-            }
+            fillOrderDetails(Page.getResult());
             return new PageResult<>(Page.getTotal(), Page.getResult());
         }
         //如果没有查询到订单，返回空的PageResult
@@ -230,6 +233,68 @@ public class OrderServiceImpl implements OrderService {
         return new PageResult<>(0L, new ArrayList<>());
     }
 
+    /**
+     * 游标分页查询订单，按(下单时间, id)倒序翻页，不受页码深度影响
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    private CursorPageResult<OrderVO> cursorPageQuery(OrdersPageQueryDTO ordersPageQueryDTO) {
+        if (ordersPageQueryDTO.getPageSize() <= 0) {
+            ordersPageQueryDTO.setPageSize(10);
+        }
+        decodeCursor(ordersPageQueryDTO);
+
+        List<OrderVO> list = orderMapper.ordersCursorQuery(ordersPageQueryDTO);
+        //多查的一条说明还有下一页
+        boolean hasMore = list.size() > ordersPageQueryDTO.getPageSize();
+        if (hasMore) {
+            list = list.subList(0, ordersPageQueryDTO.getPageSize());
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            OrderVO last = list.get(list.size() - 1);
+            nextCursor = encodeCursor(last.getOrderTime(), last.getId());
+        }
+        if (!list.isEmpty()) {
+            fillOrderDetails(list);
+        }
+
+        long total = -1;
+        if (Boolean.TRUE.equals(ordersPageQueryDTO.getWithTotal())) {
+            total = orderMapper.countOrders(ordersPageQueryDTO);
+        }
+        return new CursorPageResult<>(total, list, nextCursor, hasMore);
+    }
+
+    /**
+     * 游标格式：Base64("下单时间毫秒数:订单id")
+     */
+    private String encodeCursor(LocalDateTime orderTime, Long id) {
+        long millis = orderTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        String cursor = millis + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，空字符串表示第一页
+     */
+    private void decodeCursor(OrdersPageQueryDTO ordersPageQueryDTO) {
+        ordersPageQueryDTO.setCursorTime(null);
+        ordersPageQueryDTO.setCursorId(null);
+        String cursor = ordersPageQueryDTO.getCursor();
+        if (cursor.isEmpty()) {
+            return;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            long millis = Long.parseLong(parts[0]);
+            ordersPageQueryDTO.setCursorTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+            ordersPageQueryDTO.setCursorId(Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new OrderBusinessException(MessageConstant.PAGE_CURSOR_INVALID);
+        }
+    }
+
     /**
      * 查询订单详情
      * @param id 订单ID
@@ -254,35 +319,15 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public void cancelByUser(Long id) {
-        //查询订单
-        Orders orderDB = orderMapper.getOrdersById(id);
-        //校验订单是否存在
-        if (orderDB == null ) {
-            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
-        }
         //订单状态：1 待付款，2 待接单，3 已接单，4 派送中，5 已完成，6 已取消
-        //校验订单状态,只能直接取消待付款和待接单的订单
-        if(orderDB.getStatus() > 2){
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-        //更新订单状态
+        //只能直接取消待付款和待接单的订单，待接单的订单已支付，需进行退款
+        //TODO 进行退款操作
+        //调用微信支付接口，进行退款
         Orders orders = Orders.builder()
-                .id(id)
-                .status(Orders.CANCELLED)
                 .cancelReason("用户取消订单")
                 .cancelTime(LocalDateTime.now())
                 .build();
-        //如果订单状态是待接单，需进行退款
-        if (orderDB.getStatus().equals(Orders.TO_BE_CONFIRMED)) {
-            //TODO 进行退款操作
-            //调用微信支付接口，进行退款
-
-            //修改支付状态为退款
-            orders.setPayStatus(Orders.REFUND);
-        }
-
-
-        orderMapper.update(orders);
+        orderStateMachine.transition(id, OrderTransition.CANCEL_BY_USER, orders);
     }
 
     /**
@@ -356,23 +401,8 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public void confirm(Long orderId) {
-        //查询订单
-        Orders orderDB = orderMapper.getOrdersById(orderId);
-        //校验订单是否存在
-        if (orderDB == null ) {
-            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
-        }
-        //订单状态：1 待付款，2 待接单，3 已接单，4 派送中，5 已完成，6 已取消
-        //校验订单状态,只能接单待接单的订单
-        if(!orderDB.getStatus().equals(Orders.TO_BE_CONFIRMED)){
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-        //更新订单状态
-        Orders orders = Orders.builder()
-                .id(orderId)
-                .status(Orders.CONFIRMED) // 设置订单状态为已接单
-                .build();
-        orderMapper.update(orders);
+        //只能接单待接单的订单
+        orderStateMachine.transition(orderId, OrderTransition.CONFIRM, null);
 
     }
 
@@ -382,32 +412,14 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public void rejecttion(OrdersRejectionDTO ordersRejectionDTO) {
-        //查询订单
-        Orders orderDB = orderMapper.getOrdersById(ordersRejectionDTO.getId());
-        //校验订单是否存在
-        if (orderDB == null ) {
-            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
-        }
-        //订单状态：1 待付款，2 待接单，3 已接单，4 派送中，5 已完成，6 已取消
-        //校验订单状态,只能拒单待接单的订单
-        if(!orderDB.getStatus().equals(Orders.TO_BE_CONFIRMED)){
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-        //更新订单状态
+        //只能拒单待接单的订单，已付款的订单需进行退款
+        //TODO 进行退款操作
+        //调用微信支付接口，进行退款
         Orders orders = Orders.builder()
-                .id(ordersRejectionDTO.getId())
-                .status(Orders.CANCELLED) // 设置订单状态为已取消
                 .cancelReason(ordersRejectionDTO.getRejectionReason()) // 设置拒单原因
                 .cancelTime(LocalDateTime.now())// 设置取消时间
                 .build();
-        //如果支付状态是已付款，需进行退款?都待接单了，怎么可能是未付款的支付状态呢？
-        if (orderDB.getPayStatus().equals(Orders.PAID)) {
-            //TODO 进行退款操作
-            //调用微信支付接口，进行退款
-            //修改支付状态为退款
-            orders.setPayStatus(Orders.REFUND);
-        }
-        orderMapper.update(orders);
+        orderStateMachine.transition(ordersRejectionDTO.getId(), OrderTransition.REJECT, orders);
     }
 
     /**
@@ -416,34 +428,14 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public void cancelByAdminer(OrdersCancelDTO ordersCancelDTO) {
-        //查询订单
-        Orders orderDB = orderMapper.getOrdersById(ordersCancelDTO.getId());
-        //校验订单是否存在
-        if (orderDB == null ) {
-            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
-        }
-        //订单状态：1 待付款，2 待接单，3 已接单，4 派送中，5 已完成，6 已取消
-        //校验订单状态,商家可以取消的订单状态为：待付款、待接单、已接单、派送中
-        //如果订单状态是已完成或已取消，则不能取消订单
-        if(orderDB.getStatus() > Orders.DELIVERY_IN_PROGRESS){
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-        //更新订单状态
+        //商家可以取消的订单状态为：待付款、待接单、已接单、派送中，已付款的订单需进行退款
+        //TODO 进行退款操作
+        //调用微信支付接口，进行退款
         Orders orders = Orders.builder()
-                .id(ordersCancelDTO.getId())
-                .status(Orders.CANCELLED) // 设置订单状态为已取消
                 .cancelReason(ordersCancelDTO.getCancelReason()) // 设置取消原因
                 .cancelTime(LocalDateTime.now())// 设置取消时间
                 .build();
-        //如果支付状态是已付款，需进行退款
-        if (orderDB.getPayStatus().equals(Orders.PAID)) {
-            //TODO 进行退款操作
-            //调用微信支付接口，进行退款
-
-            //修改支付状态为退款
-            orders.setPayStatus(Orders.REFUND);
-        }
-        orderMapper.update(orders);
+        orderStateMachine.transition(ordersCancelDTO.getId(), OrderTransition.CANCEL_BY_ADMIN, orders);
 
     }
 
@@ -453,23 +445,8 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public void delivery(Long id) {
-        //查询订单
-        Orders orderDB = orderMapper.getOrdersById(id);
-        //校验订单是否存在
-        if (orderDB == null ) {
-            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
-        }
-        //订单状态：1 待付款，2 待接单，3 已接单，4 派送中，5 已完成，6 已取消
-        //校验订单状态,只能派送已接单的订单
-        if(!orderDB.getStatus().equals(Orders.CONFIRMED)){
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-        //更新订单状态
-        Orders orders = Orders.builder()
-                .id(id)
-                .status(Orders.DELIVERY_IN_PROGRESS) // 设置订单状态为派送中
-                .build();
-        orderMapper.update(orders);
+        //只能派送已接单的订单
+        orderStateMachine.transition(id, OrderTransition.DELIVER, null);
 
     }
 
@@ -479,24 +456,11 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public void complete(Long id) {
-        //查询订单
-        Orders orderDB = orderMapper.getOrdersById(id);
-        //校验订单是否存在
-        if (orderDB == null ) {
-            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
-        }
-        //订单状态：1 待付款，2 待接单，3 已接单，4 派送中，5 已完成，6 已取消
-        //校验订单状态,只能完成派送中的订单
-        if(!orderDB.getStatus().equals(Orders.DELIVERY_IN_PROGRESS)){
-            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
-        }
-        //更新订单状态
+        //只能完成派送中的订单
         Orders orders = Orders.builder()
-                .id(id)
-                .status(Orders.COMPLETED) // 设置订单状态为已完成
                 .deliveryTime(LocalDateTime.now()) // 设置送达时间
                 .build();
-        orderMapper.update(orders);
+        orderStateMachine.transition(id, OrderTransition.COMPLETE, orders);
 
     }
 
@@ -525,65 +489,43 @@ public class OrderServiceImpl implements OrderService {
 
     /**
      * 检查客户的收货地址是否超出配送范围
-     * @param address
+     * 配送距离在保存地址时已异步计算并存入地址簿，这里直接读取；
+     * 尚未计算或店铺坐标已变化时才同步解析
+     * @param addressBook
      */
-    private void checkOutOfRange(String address) {
-        Map map = new HashMap();
-        map.put("address",shopAddress);
-        map.put("output","json");
-        map.put("ak",ak);
-
-        //获取店铺的经纬度坐标
-        String shopCoordinate = HttpClientUtil.doGet("https://api.map.baidu.com/geocoding/v3", map);
-
-        JSONObject jsonObject = JSON.parseObject(shopCoordinate);
-        if(!jsonObject.getString("status").equals("0")){
-            throw new OrderBusinessException("店铺地址解析失败");
-        }
-
-        //数据解析
-        JSONObject location = jsonObject.getJSONObject("result").getJSONObject("location");
-        String lat = location.getString("lat");
-        String lng = location.getString("lng");
+    private void checkOutOfRange(AddressBook addressBook) {
         //店铺经纬度坐标
-        String shopLngLat = lat + "," + lng;
-
-        map.put("address",address);
-        //获取用户收货地址的经纬度坐标
-        String userCoordinate = HttpClientUtil.doGet("https://api.map.baidu.com/geocoding/v3", map);
+        LocationVO shopLocation = geoService.getShopLocation();
 
-        jsonObject = JSON.parseObject(userCoordinate);
-        if(!jsonObject.getString("status").equals("0")){
-            throw new OrderBusinessException("收货地址解析失败");
+        Integer distance = addressBook.getDistance();
+        if (distance == null || !shopLocation.toLatLng().equals(addressBook.getShopLocation())) {
+            distance = geoService.resolveAddressBook(addressBook);
         }
 
-        //数据解析
-        location = jsonObject.getJSONObject("result").getJSONObject("location");
-        lat = location.getString("lat");
-        lng = location.getString("lng");
-        //用户收货地址经纬度坐标
-        String userLngLat = lat + "," + lng;
-
-        map.put("origin",shopLngLat);
-        map.put("destination",userLngLat);
-        map.put("steps_info","0");
-
-        //路线规划
-        String json = HttpClientUtil.doGet("https://api.map.baidu.com/directionlite/v1/driving", map);
-
-        jsonObject = JSON.parseObject(json);
-        if(!jsonObject.getString("status").equals("0")){
-            throw new OrderBusinessException("配送路线规划失败");
+        if (distance > geoProperties.getDeliveryRange()) {
+            //配送距离超过配送范围
+            throw new OrderBusinessException(MessageConstant.OUT_OF_DELIVERY_RANGE);
         }
+    }
 
-        //数据解析
-        JSONObject result = jsonObject.getJSONObject("result");
-        JSONArray jsonArray = (JSONArray) result.get("routes");
-        Integer distance = (Integer) ((JSONObject) jsonArray.get(0)).get("distance");
-
-        if(distance > 5000){
-            //配送距离超过5000米
-            throw new OrderBusinessException("超出配送范围");
+    /**
+     * 一次查询多个订单的订单详情，按订单分组后填充订单详情和菜品信息
+     * @param orderVOList
+     */
+    private void fillOrderDetails(List<OrderVO> orderVOList) {
+        List<Long> orderIds = new ArrayList<>(orderVOList.size());
+        for (OrderVO orderVO : orderVOList) {
+            orderIds.add(orderVO.getId());
+        }
+        //一次遍历按订单id分组
+        Map<Long, List<OrderDetail>> detailMap = new HashMap<>(orderVOList.size() * 2);
+        for (OrderDetail orderDetail : orderDetailMapper.getByOrderIds(orderIds)) {
+            detailMap.computeIfAbsent(orderDetail.getOrderId(), k -> new ArrayList<>()).add(orderDetail);
+        }
+        for (OrderVO orderVO : orderVOList) {
+            List<OrderDetail> orderDetails = detailMap.getOrDefault(orderVO.getId(), new ArrayList<>());
+            orderVO.setOrderDetailList(orderDetails);
+            orderVO.setOrderDishes(convertListToJsonString(orderDetails));
         }
     }
 
@@ -0,0 +1,234 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.ReportBusinessException;
+import com.sky.properties.ReportExportProperties;
+import com.sky.service.ReportExportService;
+import com.sky.service.ReportService;
+import com.sky.vo.ReportExportJobVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步报表导出
+ * 导出任务在有界线程池中执行，结果写入本地磁盘，过期后删除；任务状态保存在内存中，
+ * 查询进度和下载需要访问提交任务的节点
+ */
+@Service
+@Slf4j
+public class ReportExportServiceImpl implements ReportExportService {
+
+    private static final String FILE_SUFFIX = ".xlsx";
+
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private ReportExportProperties reportExportProperties;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    // 不注册为Spring Bean，避免影响@Async使用的默认线程池
+    private ThreadPoolExecutor executor;
+    private Path dir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        dir = Paths.get(reportExportProperties.getDir());
+        Files.createDirectories(dir);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(reportExportProperties.getThreads(), reportExportProperties.getThreads(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(reportExportProperties.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "report-export-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 提交报表导出任务，排队的任务已满时拒绝
+     * @param begin 开始日期
+     * @param end 结束日期
+     * @return 任务id
+     */
+    @Override
+    public String submit(LocalDate begin, LocalDate end) {
+        reportService.checkExportRange(begin, end);
+        String jobId = UUID.randomUUID().toString().replace("-", "");
+        ExportJob job = new ExportJob(jobId, begin, end, dir.resolve(jobId + FILE_SUFFIX));
+        jobs.put(jobId, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId);
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_BUSY);
+        }
+        log.info("提交报表导出任务: {}，开始日期: {}，结束日期: {}", jobId, begin, end);
+        return jobId;
+    }
+
+    /**
+     * 查询导出任务的状态和进度
+     * @param jobId
+     * @return
+     */
+    @Override
+    public ReportExportJobVO getJob(String jobId) {
+        return toVO(requireJob(jobId));
+    }
+
+    /**
+     * 下载已完成的导出文件
+     * @param jobId
+     * @param response
+     */
+    @Override
+    public void download(String jobId, HttpServletResponse response) {
+        ExportJob job = requireJob(jobId);
+        if (!ReportExportJobVO.DONE.equals(job.status) || !Files.exists(job.file)) {
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_NOT_READY);
+        }
+        try {
+            String fileName = URLEncoder.encode("运营数据报表_" + job.begin + "_" + job.end + FILE_SUFFIX, "UTF-8");
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            response.setHeader("Content-Disposition", "attachment; filename*=UTF-8''" + fileName);
+            response.setContentLengthLong(Files.size(job.file));
+            ServletOutputStream out = response.getOutputStream();
+            Files.copy(job.file, out);
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 每10分钟删除过期的导出任务和文件，包括重启前遗留的文件
+     */
+    @Scheduled(fixedDelay = 10 * 60 * 1000)
+    public void cleanExpired() {
+        LocalDateTime expireTime = LocalDateTime.now().minusMinutes(reportExportProperties.getTtl());
+        jobs.values().removeIf(job -> {
+            if (job.finishTime == null || job.finishTime.isAfter(expireTime)) {
+                return false;
+            }
+            deleteQuietly(job.file);
+            return true;
+        });
+
+        long expireMillis = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(reportExportProperties.getTtl());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String jobId = file.getFileName().toString().replace(FILE_SUFFIX, "");
+                if (!jobs.containsKey(jobId) && Files.getLastModifiedTime(file).toMillis() < expireMillis) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理过期导出文件失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ExportJob job) {
+        job.status = ReportExportJobVO.RUNNING;
+        long start = System.currentTimeMillis();
+        try (OutputStream out = Files.newOutputStream(job.file)) {
+            reportService.writeExcel(out, job.begin, job.end, job.rows);
+        } catch (Exception e) {
+            deleteQuietly(job.file);
+            // 异常信息可能包含SQL或文件路径，只记录日志，不返回给客户端
+            job.message = MessageConstant.REPORT_EXPORT_FAILED;
+            job.finishTime = LocalDateTime.now();
+            job.status = ReportExportJobVO.FAILED;
+            log.error("报表导出任务失败: {}", job.id, e);
+            return;
+        }
+        // 文件关闭后才允许下载，关闭时写出的数据不会被读到一半
+        job.finishTime = LocalDateTime.now();
+        job.status = ReportExportJobVO.DONE;
+        log.info("报表导出任务完成: {}，行数: {}，耗时: {}ms",
+                job.id, job.rows.get(), System.currentTimeMillis() - start);
+    }
+
+    private ExportJob requireJob(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_JOB_NOT_FOUND);
+        }
+        return job;
+    }
+
+    private ReportExportJobVO toVO(ExportJob job) {
+        return ReportExportJobVO.builder()
+                .jobId(job.id)
+                .status(job.status)
+                .begin(job.begin)
+                .end(job.end)
+                .rows(job.rows.get())
+                .message(job.message)
+                .createTime(job.createTime)
+                .finishTime(job.finishTime)
+                .build();
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除导出文件失败: {}，原因: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 导出任务的运行状态，由导出线程更新，查询线程读取
+     */
+    private static class ExportJob {
+        private final String id;
+        private final LocalDate begin;
+        private final LocalDate end;
+        private final Path file;
+        private final LocalDateTime createTime = LocalDateTime.now();
+        private final AtomicLong rows = new AtomicLong();
+        private volatile String status = ReportExportJobVO.PENDING;
+        private volatile String message;
+        private volatile LocalDateTime finishTime;
+
+        private ExportJob(String id, LocalDate begin, LocalDate end, Path file) {
+            this.id = id;
+            this.begin = begin;
+            this.end = end;
+            this.file = file;
+        }
+    }
+}
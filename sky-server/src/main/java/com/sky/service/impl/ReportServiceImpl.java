@@ -2,102 +2,122 @@ package com.sky.service.impl;
 
 // ... (import 语句保持不变) ...
 
-import com.sky.entity.Orders;
+import com.sky.constant.MessageConstant;
+import com.sky.entity.DailyBusinessStats;
+import com.sky.entity.HourlyBusinessStats;
+import com.sky.entity.UserRegistrationStats;
+import com.sky.enumeration.TimeGranularity;
+import com.sky.exception.ReportBusinessException;
+import com.sky.mapper.DailyBusinessStatsMapper;
+import com.sky.mapper.HourlyBusinessStatsMapper;
+import com.sky.mapper.UserRegistrationStatsMapper;
 import com.sky.mapper.OrderDetailMapper;
-import com.sky.mapper.OrderMapper;
-import com.sky.mapper.UserMapper;
+import com.sky.report.BusinessStatsSeries;
+import com.sky.report.ReportCache;
+import com.sky.report.SalesRanking;
+import com.sky.report.StreamingExcelWriter;
 import com.sky.service.ReportService;
 import com.sky.service.WorkspaceService;
+import com.sky.task.AsyncQueryExecutor;
 import com.sky.vo.*;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PreDestroy;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigDecimal;
+import java.io.OutputStream;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class ReportServiceImpl implements ReportService {
 
-    @Autowired
-    private OrderMapper orderMapper;
-    @Autowired
-    private UserMapper userMapper;
+    // 导出报表允许的最大天数
+    private static final int MAX_EXPORT_DAYS = 366;
+    // 按小时统计允许的最大天数
+    private static final int MAX_HOURLY_DAYS = 92;
+    // 销量排行允许的最大天数，每天一个有序集合参与合并
+    private static final int MAX_RANKING_DAYS = 366;
+    // 模版中每日明细的起始行和预置行数
+    private static final int DETAIL_FIRST_ROW = 7;
+    private static final int DETAIL_TEMPLATE_ROWS = 30;
+    // 流式导出时每个sheet在内存中保留的行数
+    private static final int EXPORT_ROW_WINDOW = 100;
+    private static final String ORDER_DETAIL_SHEET = "订单明细";
+    private static final String[] ORDER_DETAIL_HEADERS =
+            {"订单号", "结账时间", "订单状态", "收货人", "手机号", "菜品/套餐", "口味", "数量", "金额"};
+    // 订单状态 1待付款 2待接单 3已接单 4派送中 5已完成 6已取消
+    private static final String[] ORDER_STATUS_NAMES = {null, "待付款", "待接单", "已接单", "派送中", "已完成", "已取消"};
+    // 每天重新计算累计用户数的天数
+    private static final int CUMULATIVE_RECONCILE_DAYS = 3;
+
     @Autowired
     private OrderDetailMapper orderDetailMapper;
     @Autowired
     private WorkspaceService workspaceService; // 假设这个服务已经实现了相关的业务逻辑
+    @Autowired
+    private DailyBusinessStatsMapper dailyBusinessStatsMapper;
+    @Autowired
+    private HourlyBusinessStatsMapper hourlyBusinessStatsMapper;
+    @Autowired
+    private UserRegistrationStatsMapper userRegistrationStatsMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private AsyncQueryExecutor asyncQueryExecutor;
+    @Autowired
+    private ReportCache reportCache;
+    @Autowired
+    private SalesRanking salesRanking;
+
+    // 重建汇总数据的后台线程，不占用请求线程；同一时间只执行一个重建任务
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "report-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
 
     /**
      * 营业额统计
      * @param beginDate 统计的开始日期
      * @param endDate   统计的结束日期
+     * @param granularity 统计的时间粒度
      * @return TurnoverReportVO 营业额统计结果
      */
     @Override
-    public TurnoverReportVO turnoverStatistics(LocalDate beginDate, LocalDate endDate) {
-        // ========== 核心逻辑开始 ==========
-
-        // 步骤一：准备数据 - 查询并转换
-        // ===================================
-        LocalDate endDatePlusOne = endDate.plusDays(1);
-        List<SumAmount> sumAmountList = orderMapper.sumAmountByCheckoutTime(beginDate, endDatePlusOne, Orders.COMPLETED);
-
-        Map<LocalDate, BigDecimal> turnoverMap = sumAmountList.stream()
-                .collect(Collectors.toMap(SumAmount::getDate, SumAmount::getTurnover));
-
-        // 步骤二：数据处理
-        // ===================================
-
-        // 1. 创建两个空列表
-        List<LocalDate> continuousDateList = new ArrayList<>();
-        List<BigDecimal> continuousTurnoverList = new ArrayList<>();
-
-        // 2. 从开始日期循环到结束日期
-        LocalDate currentDate = beginDate;
-        while (!currentDate.isAfter(endDate)) {
-            // a. 将当前日期加入到连续日期列表中
-            continuousDateList.add(currentDate);
+    public TurnoverReportVO turnoverStatistics(LocalDate beginDate, LocalDate endDate, TimeGranularity granularity) {
+        checkStatisticsRange(beginDate, endDate, granularity);
+        BusinessStatsSeries series = businessSeries(beginDate, endDate, granularity);
 
-            // b. 从Map中获取营业额，默认值为 BigDecimal.ZERO
-            BigDecimal turnover = turnoverMap.getOrDefault(currentDate, BigDecimal.ZERO);
-
-            // c. 将获取到的 BigDecimal 对象加入到列表中
-            continuousTurnoverList.add(turnover);
-
-            // d. 日期增加一天
-            currentDate = currentDate.plusDays(1);
-        }
-
-        // 步骤三：封装结果 - 格式化并返回
-        // ===================================
-
-        // 1. 将日期列表转换为逗号分隔的字符串
-        String dateListStr = StringUtils.join(continuousDateList, ",");
-
-        // 2. 将BigDecimal列表转换为逗号分隔的字符串
-        //    StringUtils.join会自动调用每个BigDecimal对象的toString()方法，所以这里能正常工作
-        String turnoverListStr = StringUtils.join(continuousTurnoverList, ",");
-
-        // 3. 使用Builder模式创建并返回最终的VO对象
         return TurnoverReportVO.builder()
-                .dateList(dateListStr)
-                .turnoverList(turnoverListStr)
+                .dateList(series.labels())
+                .turnoverList(series.turnover())
                 .build();
     }
 
@@ -105,126 +125,52 @@ public class ReportServiceImpl implements ReportService {
      * 用户统计
      * @param begin 统计的开始日期
      * @param end 统计的结束日期
+     * @param granularity 统计的时间粒度
      * @return UserReportVO 用户统计结果
      */
     @Override
-    public UserReportVO userStatistics(LocalDate begin, LocalDate end) {
-        // 步骤一：准备数据 - 查询并转换
-        // ===================================
-        List<CountUser> sumAmountVOList = userMapper.countUserByCreateTime(begin, end.plusDays(1));
+    public UserReportVO userStatistics(LocalDate begin, LocalDate end, TimeGranularity granularity) {
+        checkStatisticsRange(begin, end, granularity);
+        // 每个区间的新增用户数和beginDate之前的用户数互不依赖，并行查询
+        AsyncQueryExecutor.Batch batch = asyncQueryExecutor.batch();
+        Future<BusinessStatsSeries> seriesFuture = batch.submit(() -> businessSeries(begin, end, granularity));
+        Future<Long> totalUserFuture = batch.submit(() -> userRegistrationStatsMapper.getCumulativeBefore(begin));
+        BusinessStatsSeries series = batch.get(seriesFuture);
         //查询beginDate之前的用户数
-        LocalDateTime beginDateTime = begin.atStartOfDay();
-        Long totalUserCount = userMapper.countUserBeforeDate(beginDateTime);
-
-        Map<LocalDate,Long> countUserMap = sumAmountVOList.stream()
-                .collect(Collectors.toMap(CountUser::getDate, CountUser::getNewUserCount));
+        Long totalUserCount = batch.get(totalUserFuture);
 
-        // 步骤二：数据处理
-        // ===================================
-
-        // 1. 创建3个空列表
-        List<LocalDate> dateList = new ArrayList<>();
-        List<Long> newUserList = new ArrayList<>();
-        List<Long> totalUserList = new ArrayList<>();
-
-        // 2. 从开始日期循环到结束日期
-        LocalDate currentDate = begin;
-        while (!currentDate.isAfter(end)) {
-            // a. 将当前日期加入到连续日期列表中
-            dateList.add(currentDate);
-
-            // b. 从Map中获取每日用户数，默认值为 0L
-            Long userCount  = countUserMap.getOrDefault(currentDate, 0L);
-            totalUserCount += userCount;
-
-            // c. 将获取到的每日用户数加入到列表中
-            newUserList.add(userCount);
-
-            totalUserList.add(totalUserCount);
-
-            // d. 日期增加一天
-            currentDate = currentDate.plusDays(1);
-        }
-
-        // 步骤三：封装结果 - 格式化并返回
-        // ===================================
-
-        // 1. 将日期列表转换为逗号分隔的字符串
-        String dateListStr = StringUtils.join(dateList, ",");
-
-        // 2. 将BigDecimal列表转换为逗号分隔的字符串
-        //    StringUtils.join会自动调用每个BigDecimal对象的toString()方法，所以这里能正常工作
-        String turnoverListStr = StringUtils.join(newUserList, ",");
-
-        String totalUserListStr = StringUtils.join(totalUserList, ",");
-
-        // 3. 使用Builder模式创建并返回最终的VO对象
         return UserReportVO.builder()
-                .dateList(dateListStr)
-                .totalUserList(totalUserListStr)
-                .newUserList(turnoverListStr)
+                .dateList(series.labels())
+                .totalUserList(series.cumulativeUsers(totalUserCount))
+                .newUserList(series.newUsers())
                 .build();
-
-
     }
 
     /**
      * 订单统计
      * @param begin 统计的开始日期
      * @param end 统计的结束日期
+     * @param granularity 统计的时间粒度
      * @return OrderReportVO 订单统计结果
      */
     @Override
-    public OrderReportVO ordersStatistics(LocalDate begin, LocalDate end) {
-
-        List<CountOrders> completedList = orderMapper
-                .countOrdersByCheckoutTime(begin, end.plusDays(1), Orders.COMPLETED);
-        List<CountOrders> allStatusList = orderMapper
-                .countOrdersByCheckoutTime(begin, end.plusDays(1), null);
-        Map<LocalDate,Long> completedMap = completedList.stream()
-                .collect(Collectors.toMap(CountOrders::getDate, CountOrders::getOrdersCount));
-        Map<LocalDate,Long> allStatusMap = allStatusList.stream()
-                .collect(Collectors.toMap(CountOrders::getDate, CountOrders::getOrdersCount));
-
-        List<LocalDate> dateList = new ArrayList<>();
-        List<Long> validOrderCountList = new ArrayList<>();
-        List<Long> orderCountList = new ArrayList<>();
+    public OrderReportVO ordersStatistics(LocalDate begin, LocalDate end, TimeGranularity granularity) {
+        checkStatisticsRange(begin, end, granularity);
+        BusinessStatsSeries series = businessSeries(begin, end, granularity);
+
         //有效订单数
-        Long validOrderCount = 0L;
+        long validOrderCount = series.sumValidOrders();
         //订单总数
-        Long totalOrderCount = 0L;
-
-        LocalDate currentDate = begin;
-
-        while (!currentDate.isAfter(end)) {
-            // a. 将当前日期加入到连续日期列表中
-            dateList.add(currentDate);
-            // b. 从Map中获取每日有效订单数，默认值为 0L
-            Long validOrderCountToday = completedMap.getOrDefault(currentDate, 0L);
-            validOrderCount += validOrderCountToday;
-            validOrderCountList.add(validOrderCountToday);
-            // c. 从Map中获取每日订单数，默认值为 0L
-            Long orderCountToday = allStatusMap.getOrDefault(currentDate, 0L);
-            totalOrderCount += orderCountToday;
-            orderCountList.add(orderCountToday);
-
-            // d. 日期增加一天
-            currentDate = currentDate.plusDays(1);
-        }
+        long totalOrderCount = series.sumTotalOrders();
         // 计算订单完成率
         Double orderCompletionRate = totalOrderCount == 0 ? 0.0 : (double) validOrderCount / totalOrderCount;
 
-        // 将三个列表转换为逗号分隔的字符串
-        String dateListStr = StringUtils.join(dateList, ",");
-        String validOrderCountListStr = StringUtils.join(validOrderCountList, ",");
-        String orderCountListStr = StringUtils.join(orderCountList, ",");
-
         return OrderReportVO.builder()
-                .dateList(dateListStr)
-                .validOrderCountList(validOrderCountListStr)
-                .orderCountList(orderCountListStr)
-                .totalOrderCount(totalOrderCount.intValue())
-                .validOrderCount(validOrderCount.intValue())
+                .dateList(series.labels())
+                .validOrderCountList(series.validOrders())
+                .orderCountList(series.totalOrders())
+                .totalOrderCount((int) totalOrderCount)
+                .validOrderCount((int) validOrderCount)
                 .orderCompletionRate(orderCompletionRate)
                 .build();
     }
@@ -235,8 +181,13 @@ public class ReportServiceImpl implements ReportService {
      */
     @Override
     public SalesTop10ReportVO top10(LocalDate begin, LocalDate end) {
+        if (begin == null || end == null || begin.isAfter(end)
+                || ChronoUnit.DAYS.between(begin, end) >= MAX_RANKING_DAYS) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_INVALID);
+        }
 
-        List<SalesTop10> salesTop10List = orderDetailMapper.salesTop10(begin, end.plusDays(1));
+        // 按天的销量排行合并后取前10
+        List<SalesTop10> salesTop10List = salesRanking.top(begin, end, 10);
 
         List<String> nameList = salesTop10List.stream()
                 .map(SalesTop10::getName)
@@ -256,26 +207,231 @@ public class ReportServiceImpl implements ReportService {
 
     }
 
+    /**
+     * 提交重建每日和每小时运营数据汇总以及用户注册累计数的后台任务
+     * 已有重建任务在执行时拒绝
+     * @param begin 开始日期，为空时从最早的数据开始
+     * @param end 结束日期，为空时到今天
+     * @return 任务id
+     */
+    @Override
+    public String submitRebuild(LocalDate begin, LocalDate end) {
+        if (begin != null && end != null && begin.isAfter(end)) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_INVALID);
+        }
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new ReportBusinessException(MessageConstant.REPORT_REBUILD_RUNNING);
+        }
+        String jobId = UUID.randomUUID().toString().replace("-", "");
+        try {
+            rebuildExecutor.execute(() -> {
+                long start = System.currentTimeMillis();
+                try {
+                    rebuildDailyStats(begin, end);
+                    log.info("汇总数据重建完成，任务: {}，耗时: {}ms", jobId, System.currentTimeMillis() - start);
+                } catch (Exception e) {
+                    log.error("汇总数据重建失败，任务: {}，原因: {}", jobId, e.getMessage());
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            rebuilding.set(false);
+            throw e;
+        }
+        log.info("提交汇总数据重建任务: {}，开始日期: {}，结束日期: {}", jobId, begin, end);
+        return jobId;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * 根据订单表和用户表重建每日和每小时运营数据汇总以及用户注册累计数
+     * 按月分段重建，每段一个事务，避免长事务
+     * @param begin 开始日期，为空时从最早的数据开始
+     * @param end 结束日期，为空时到今天
+     */
+    private void rebuildDailyStats(LocalDate begin, LocalDate end) {
+        if (begin == null) {
+            begin = dailyBusinessStatsMapper.getEarliestDate();
+            if (begin == null) {
+                return;
+            }
+        }
+        if (end == null) {
+            end = LocalDate.now();
+        }
+        log.info("重建每日运营数据汇总，开始日期: {}，结束日期: {}", begin, end);
+        LocalDate segmentBegin = begin;
+        while (!segmentBegin.isAfter(end)) {
+            LocalDate segmentEnd = segmentBegin.plusMonths(1).minusDays(1);
+            if (segmentEnd.isAfter(end)) {
+                segmentEnd = end;
+            }
+            LocalDate from = segmentBegin;
+            LocalDate to = segmentEnd;
+            transactionTemplate.execute(status -> {
+                dailyBusinessStatsMapper.reset(from, to);
+                dailyBusinessStatsMapper.rebuildOrders(from, to.plusDays(1));
+                dailyBusinessStatsMapper.rebuildUsers(from, to.plusDays(1));
+                hourlyBusinessStatsMapper.reset(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+                hourlyBusinessStatsMapper.rebuildOrders(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+                hourlyBusinessStatsMapper.rebuildUsers(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+                userRegistrationStatsMapper.reset(from, to);
+                userRegistrationStatsMapper.rebuildNewUsers(from, to.plusDays(1));
+                refreshCumulativeUsers(from, to);
+                return null;
+            });
+            reportCache.evict(from, to);
+            log.info("汇总数据已重建到: {}", to);
+            segmentBegin = segmentEnd.plusDays(1);
+        }
+        // 重建范围之后的累计用户数依赖重建范围内的数据，一并修正
+        LocalDate today = LocalDate.now();
+        if (end.isBefore(today)) {
+            LocalDate from = end.plusDays(1);
+            transactionTemplate.execute(status -> {
+                refreshCumulativeUsers(from, today);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 每天零点后计算最近几天的累计用户数，跨零点提交的注册会计入前一天，一并修正
+     * 注册时只累加当天的新增用户数，累计用户数不在注册事务中维护
+     */
+    @Scheduled(cron = "0 10 0 * * ?")
+    public void closeCumulativeUsers() {
+        LocalDate today = LocalDate.now();
+        try {
+            transactionTemplate.execute(status -> {
+                refreshCumulativeUsers(today.minusDays(CUMULATIVE_RECONCILE_DAYS), today.minusDays(1));
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("累计用户数计算失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按每日新增用户数重新计算日期范围内的累计用户数，之前的累计用户数必须正确
+     * 当天及之后的记录仍在累加新增用户数，累计用户数置0，查询时按新增用户数计算
+     */
+    private void refreshCumulativeUsers(LocalDate begin, LocalDate end) {
+        LocalDate today = LocalDate.now();
+        long cumulative = userRegistrationStatsMapper.getCumulativeBefore(begin);
+        List<UserRegistrationStats> statsList = userRegistrationStatsMapper.list(begin, end);
+        for (UserRegistrationStats stats : statsList) {
+            cumulative += stats.getNewUsers();
+            stats.setCumulativeUsers(stats.getStatDate().isBefore(today) ? cumulative : 0L);
+        }
+        if (!statsList.isEmpty()) {
+            userRegistrationStatsMapper.updateCumulative(statsList);
+        }
+    }
+
+    /**
+     * 按时间粒度统计日期范围内的运营数据
+     * 按小时统计时查询每小时汇总；按天和按周统计时使用每日汇总，优先从按天缓存中获取
+     * 调用前由checkStatisticsRange校验日期范围
+     * @return 每个区间的运营数据，没有数据的区间为0
+     */
+    private BusinessStatsSeries businessSeries(LocalDate begin, LocalDate end, TimeGranularity granularity) {
+        BusinessStatsSeries series = new BusinessStatsSeries(granularity, begin, end);
+        if (granularity == TimeGranularity.HOUR) {
+            for (HourlyBusinessStats stats : hourlyBusinessStatsMapper.list(
+                    begin.atStartOfDay(), end.plusDays(1).atStartOfDay())) {
+                series.add(stats.getStatHour(), stats.getTurnover(), stats.getValidOrderCount(),
+                        stats.getTotalOrderCount(), stats.getNewUsers());
+            }
+        } else {
+            for (DailyBusinessStats stats : dailyStatsMap(begin, end).values()) {
+                series.add(stats.getStatDate().atStartOfDay(), stats.getTurnover(), stats.getValidOrderCount(),
+                        stats.getTotalOrderCount(), stats.getNewUsers());
+            }
+        }
+        return series;
+    }
+
+    /**
+     * 校验统计的日期范围，按小时统计时最多查询MAX_HOURLY_DAYS天
+     */
+    private void checkStatisticsRange(LocalDate begin, LocalDate end, TimeGranularity granularity) {
+        if (begin == null || end == null || begin.isAfter(end)
+                || granularity == TimeGranularity.HOUR && ChronoUnit.DAYS.between(begin, end) >= MAX_HOURLY_DAYS) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_INVALID);
+        }
+    }
+
+    /**
+     * 查询日期范围内的每日运营数据汇总，优先从按天缓存中获取
+     * @return 日期到汇总数据的映射
+     */
+    private Map<LocalDate, DailyBusinessStats> dailyStatsMap(LocalDate begin, LocalDate end) {
+        return reportCache.getDailyStats(begin, end);
+    }
+
     /**
      * 导出Excel报表
+     * 生成期间占用请求线程，数据量较大时使用异步导出任务
      * @param response HttpServletResponse
+     * @param begin 开始日期
+     * @param end 结束日期
      */
     @Override
-    public void exportExcel(HttpServletResponse response) {
-        //查数据库，获取营业额数据
-        BusinessDataVO total=  workspaceService.getBusinessData(LocalDate.now().minusDays(30),
-                LocalDate.now().minusDays(1));
+    public void exportExcel(HttpServletResponse response, LocalDate begin, LocalDate end) {
+        checkExportRange(begin, end);
+        try {
+            ServletOutputStream out = response.getOutputStream();
+            writeExcel(out, begin, end, null);
+            out.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 校验导出的日期范围
+     * @param begin
+     * @param end
+     */
+    @Override
+    public void checkExportRange(LocalDate begin, LocalDate end) {
+        if (begin == null || end == null || begin.isAfter(end)
+                || ChronoUnit.DAYS.between(begin, end) >= MAX_EXPORT_DAYS) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_INVALID);
+        }
+    }
+
+    /**
+     * 生成运营数据报表并写入输出流
+     * 一次查询出整个日期范围的每日汇总数据，在内存中计算每日明细和合计
+     * 订单明细通过游标逐行读取并流式写入，内存占用与订单数量无关
+     * @param out 输出流，由调用方关闭
+     * @param begin 开始日期
+     * @param end 结束日期
+     * @param progress 已写入的行数，可以为null
+     */
+    @Override
+    public void writeExcel(OutputStream out, LocalDate begin, LocalDate end, AtomicLong progress) throws IOException {
+        //查数据库，获取日期范围内的每日运营数据
+        Map<LocalDate, DailyBusinessStats> statsMap = dailyStatsMap(begin, end);
+        List<DailyBusinessStats> statsList = new ArrayList<>(statsMap.values());
+        BusinessDataVO total = workspaceService.sumBusinessData(statsList);
         //读取模版
         InputStream in = this.getClass().getClassLoader().getResourceAsStream("template/运营数据报表模板.xlsx");
         if (in == null) {
             throw new RuntimeException("模版文件不存在");
         }
         //创建Excel工作簿
-        try {
-            Workbook workbook = new XSSFWorkbook(in);
+        try (StreamingExcelWriter writer = new StreamingExcelWriter(in, EXPORT_ROW_WINDOW)) {
             //填充total数据
-            XSSFSheet sheet1 = (XSSFSheet) workbook.getSheet("sheet1");
-            sheet1.getRow(1).getCell(1).setCellValue(LocalDate.now().minusDays(30)+"至"+LocalDate.now().minusDays(1));
+            XSSFSheet sheet1 = writer.getTemplateSheet("sheet1");
+            sheet1.getRow(1).getCell(1).setCellValue(begin + "至" + end);
             XSSFRow row3 = sheet1.getRow(3);
             row3.getCell(2).setCellValue(total.getTurnover());
             row3.getCell(4).setCellValue(total.getOrderCompletionRate());
@@ -283,29 +439,85 @@ public class ReportServiceImpl implements ReportService {
             XSSFRow row4 = sheet1.getRow(4);
             row4.getCell(2).setCellValue(total.getValidOrderCount());
             row4.getCell(4).setCellValue(total.getUnitPrice());
-            //填充前30天的营业额数据
-            for(int i = 0; i < 30; i++) {
-                LocalDate date = LocalDate.now().minusDays(30 - i);
-                BusinessDataVO businessData = workspaceService.getBusinessData(date, date);
-                XSSFRow row = sheet1.getRow(7 + i);
-                row.getCell(1).setCellValue(date.toString());
-                row.getCell(2).setCellValue(businessData.getTurnover());
-                row.getCell(3).setCellValue(businessData.getValidOrderCount());
-                row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
-                row.getCell(5).setCellValue(businessData.getUnitPrice());
-                row.getCell(6).setCellValue(businessData.getNewUsers());
+            //填充每日数据，模版中预置的行直接填充，超出的行沿用模版最后一行的样式流式追加
+            XSSFRow templateRow = sheet1.getRow(DETAIL_FIRST_ROW + DETAIL_TEMPLATE_ROWS - 1);
+            CellStyle[] styles = new CellStyle[6];
+            for (int col = 1; col <= 6; col++) {
+                styles[col - 1] = templateRow.getCell(col).getCellStyle();
             }
-            ServletOutputStream out = response.getOutputStream();
-            workbook.write(out);
-            out.close();
-            workbook.close();
+            SXSSFSheet dailySheet = writer.getSheet("sheet1");
+            int i = 0;
+            for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1), i++) {
+                DailyBusinessStats stats = statsMap.get(date);
+                BusinessDataVO businessData = workspaceService.sumBusinessData(
+                        stats == null ? Collections.emptyList() : Collections.singletonList(stats));
+                if (i < DETAIL_TEMPLATE_ROWS) {
+                    XSSFRow row = sheet1.getRow(DETAIL_FIRST_ROW + i);
+                    row.getCell(1).setCellValue(date.toString());
+                    row.getCell(2).setCellValue(businessData.getTurnover());
+                    row.getCell(3).setCellValue(businessData.getValidOrderCount());
+                    row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
+                    row.getCell(5).setCellValue(businessData.getUnitPrice());
+                    row.getCell(6).setCellValue(businessData.getNewUsers());
+                } else {
+                    writer.writeRow(dailySheet, DETAIL_FIRST_ROW + i, 1, styles,
+                            date.toString(), businessData.getTurnover(), businessData.getValidOrderCount(),
+                            businessData.getOrderCompletionRate(), businessData.getUnitPrice(), businessData.getNewUsers());
+                }
+                if (progress != null) {
+                    progress.incrementAndGet();
+                }
+            }
+            //填充订单明细
+            writeOrderDetails(writer, begin, end, progress);
 
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            writer.write(out);
         }
+    }
 
+    /**
+     * 流式写入订单明细sheet，超出单个sheet的最大行数时续写到新的sheet
+     * 游标需要在事务中遍历，遍历完成后即提交释放连接，之后再写出到响应流
+     */
+    private void writeOrderDetails(StreamingExcelWriter writer, LocalDate begin, LocalDate end, AtomicLong progress) {
+        CellStyle headerStyle = writer.createCellStyle();
+        headerStyle.setAlignment(HorizontalAlignment.CENTER);
+        transactionTemplate.execute(status -> {
+            try (Cursor<OrderDetailExportVO> cursor = orderDetailMapper.streamForExport(begin, end.plusDays(1))) {
+                int sheetCount = 0;
+                SXSSFSheet sheet = null;
+                int rowIndex = StreamingExcelWriter.MAX_ROWS;
+                for (OrderDetailExportVO detail : cursor) {
+                    if (rowIndex == StreamingExcelWriter.MAX_ROWS) {
+                        sheetCount++;
+                        sheet = writer.getSheet(sheetCount == 1 ? ORDER_DETAIL_SHEET : ORDER_DETAIL_SHEET + sheetCount);
+                        writer.writeRow(sheet, 0, 0, null, ORDER_DETAIL_HEADERS);
+                        for (int col = 0; col < ORDER_DETAIL_HEADERS.length; col++) {
+                            sheet.getRow(0).getCell(col).setCellStyle(headerStyle);
+                            sheet.setColumnWidth(col, 20 * 256);
+                        }
+                        rowIndex = 1;
+                    }
+                    writer.writeRow(sheet, rowIndex++, 0, null,
+                            detail.getNumber(), detail.getCheckoutTime(), orderStatusName(detail.getStatus()),
+                            detail.getConsignee(), detail.getPhone(), detail.getName(), detail.getDishFlavor(),
+                            detail.getQuantity(), detail.getAmount());
+                    if (progress != null) {
+                        progress.incrementAndGet();
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return null;
+        });
+    }
 
-
+    private String orderStatusName(Integer status) {
+        if (status == null || status < 1 || status >= ORDER_STATUS_NAMES.length) {
+            return null;
+        }
+        return ORDER_STATUS_NAMES[status];
     }
 
-}
\ No newline at end of file
+}
@@ -2,12 +2,14 @@ package com.sky.service.impl;
 
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.cache.MenuCacheInvalidator;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.StatusConstant;
 import com.sky.dto.SetmealDTO;
 import com.sky.dto.SetmealPageQueryDTO;
 import com.sky.entity.Setmeal;
 import com.sky.entity.SetmealDish;
+import com.sky.event.MenuChangedEvent;
 import com.sky.exception.DeletionNotAllowedException;
 import com.sky.exception.SetmealEnableFailedException;
 import com.sky.mapper.DishMapper;
@@ -19,11 +21,14 @@ import com.sky.vo.DishItemVO;
 import com.sky.vo.SetmealVO;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 
 @Service
@@ -36,6 +41,10 @@ public class SetmealServiceImpl implements SetmealService {
     private SetmealDishMapper setmealDishMapper;
     @Autowired
     private DishMapper dishMapper;
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+    @Autowired
+    private MenuCacheInvalidator menuCacheInvalidator;
 
     /**
      * 分页查询套餐
@@ -81,6 +90,8 @@ public class SetmealServiceImpl implements SetmealService {
 
         BeanUtils.copyProperties(setmealDTO, setmeal);
         setmealMapper.add(setmeal);
+        applicationEventPublisher.publishEvent(new MenuChangedEvent("新增套餐",
+                Collections.emptySet(), Collections.singleton(setmeal.getCategoryId())));
         // 保存套餐菜品信息
         List<SetmealDish> setmealDishes = setmealDTO.getSetmealDishes();
         if (setmealDishes != null && !setmealDishes.isEmpty()) {
@@ -104,10 +115,14 @@ public class SetmealServiceImpl implements SetmealService {
         if (status.contains(StatusConstant.ENABLE)) {
             throw new DeletionNotAllowedException(MessageConstant.SETMEAL_ON_SALE);
         }
+        // 删除前记录套餐所在的分类
+        Set<Long> categoryIds = menuCacheInvalidator.setmealCategoryIds(ids);
         // 删除套餐菜品关系
         setmealDishMapper.deleteBySetmealIds(ids);
         // 删除套餐
         setmealMapper.deleteByIds(ids);
+        applicationEventPublisher.publishEvent(new MenuChangedEvent("删除套餐",
+                Collections.emptySet(), categoryIds));
 
     }
 
@@ -134,6 +149,8 @@ public class SetmealServiceImpl implements SetmealService {
         setmeal.setStatus(status);
         // 更新套餐状态
         setmealMapper.update(setmeal);
+        applicationEventPublisher.publishEvent(new MenuChangedEvent("套餐起售、停售",
+                Collections.emptySet(), menuCacheInvalidator.setmealCategoryIds(Collections.singletonList(id))));
 
     }
 
@@ -144,10 +161,17 @@ public class SetmealServiceImpl implements SetmealService {
     @Override
     @Transactional
     public void update(SetmealDTO setmealDTO) {
+        // 修改前记录套餐所在的分类，换分类时原分类和新分类的缓存都要清除
+        Set<Long> categoryIds = menuCacheInvalidator.setmealCategoryIds(Collections.singletonList(setmealDTO.getId()));
+        if (setmealDTO.getCategoryId() != null) {
+            categoryIds.add(setmealDTO.getCategoryId());
+        }
         //更新setmeal
         Setmeal setmeal = new Setmeal();
         BeanUtils.copyProperties(setmealDTO, setmeal);
         setmealMapper.update(setmeal);
+        applicationEventPublisher.publishEvent(new MenuChangedEvent("修改套餐",
+                Collections.emptySet(), categoryIds));
 
         //更新套餐菜品关系
         List<SetmealDish> setmealDishes = setmealDTO.getSetmealDishes();
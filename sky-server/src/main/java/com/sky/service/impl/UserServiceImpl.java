@@ -5,11 +5,13 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.sky.constant.MessageConstant;
 import com.sky.entity.User;
+import com.sky.event.UserRegisteredEvent;
 import com.sky.exception.LoginFailedException;
 import com.sky.mapper.UserMapper;
 import com.sky.properties.WeChatProperties;
 import com.sky.service.UserService;
 import com.sky.utils.HttpClientUtil;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
@@ -27,6 +29,9 @@ public class UserServiceImpl implements UserService {
 
     @Resource
     private WeChatProperties weChatProperties;
+
+    @Resource
+    private ApplicationEventPublisher applicationEventPublisher;
     /**
      * @param code
      * @return
@@ -48,6 +53,7 @@ public class UserServiceImpl implements UserService {
                     .createTime(LocalDateTime.now())
                     .build();
             userMapper.add(user);
+            applicationEventPublisher.publishEvent(new UserRegisteredEvent(user));
         }
         return user;
     }
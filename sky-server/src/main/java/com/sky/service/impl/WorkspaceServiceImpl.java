@@ -1,31 +1,38 @@
 package com.sky.service.impl;
 
+import com.sky.entity.DailyBusinessStats;
 import com.sky.entity.Orders;
+import com.sky.mapper.DailyBusinessStatsMapper;
 import com.sky.mapper.DishMapper;
-import com.sky.mapper.OrderMapper;
 import com.sky.mapper.SetmealMapper;
-import com.sky.mapper.UserMapper;
+import com.sky.report.WorkspaceCounter;
 import com.sky.service.WorkspaceService;
+import com.sky.task.AsyncQueryExecutor;
 import com.sky.vo.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
 
 
 @Service
 public class WorkspaceServiceImpl implements WorkspaceService {
 
     @Autowired
-    private UserMapper userMapper;
-    @Autowired
-    private OrderMapper orderMapper;
+    private DailyBusinessStatsMapper dailyBusinessStatsMapper;
     @Autowired
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private AsyncQueryExecutor asyncQueryExecutor;
+    @Autowired
+    private WorkspaceCounter workspaceCounter;
 
 
     /**
@@ -34,64 +41,47 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      */
     @Override
     public BusinessDataVO getBusinessData(LocalDate begin, LocalDate end) {
+        LocalDate today = LocalDate.now();
+        if (begin.equals(today) && end.equals(today)) {
+            // 今日数据直接读取实时计数器
+            Map<String, Long> counters = workspaceCounter.today();
+            DailyBusinessStats stats = DailyBusinessStats.builder()
+                    .statDate(today)
+                    .turnover(BigDecimal.valueOf(counters.getOrDefault(WorkspaceCounter.TURNOVER, 0L), 2))
+                    .validOrderCount(counters.getOrDefault(WorkspaceCounter.VALID_ORDERS, 0L).intValue())
+                    .totalOrderCount(counters.getOrDefault(WorkspaceCounter.TOTAL_ORDERS, 0L).intValue())
+                    .newUsers(counters.getOrDefault(WorkspaceCounter.NEW_USERS, 0L).intValue())
+                    .build();
+            return sumBusinessData(Collections.singletonList(stats));
+        }
+        // 汇总表在订单结账、完成和用户注册时增量维护，每天一行，无需扫描订单表和用户表
+        return sumBusinessData(dailyBusinessStatsMapper.list(begin, end));
+    }
+
+    /**
+     * 汇总多天的运营数据
+     * @param statsList 每日运营数据汇总
+     * @return BusinessDataVO 汇总后的运营数据
+     */
+    @Override
+    public BusinessDataVO sumBusinessData(List<DailyBusinessStats> statsList) {
         // ========== 1. 初始化累加变量 ==========
         BigDecimal totalTurnover = BigDecimal.ZERO; // 使用BigDecimal累加营业额，更精确
         Long totalValidOrderCount = 0L;           // 累加有效订单数
         Long totalNewUsers = 0L;                  // 累加新增用户数
         Long totalOrderCount = 0L;                // 累加总订单数
 
-        // ========== 2. 调用已有的Mapper方法，查询【整个时间段】的聚合数据 ==========
-
-        // 准备时间参数（左闭右开区间）
-        LocalDate endDatePlusOne = end.plusDays(1);
-
-        // a. 获取时间段内，【每日】的营业额列表
-        List<SumAmount> turnoverList = orderMapper.sumAmountByCheckoutTime(begin, endDatePlusOne, Orders.COMPLETED);
-
-        // b. 获取时间段内，【每日】的有效订单数列表
-        List<CountOrders> validOrderList = orderMapper.countOrdersByCheckoutTime(begin, endDatePlusOne, Orders.COMPLETED);
-
-        // c. 获取时间段内，【每日】的总订单数列表
-        List<CountOrders> allOrderList = orderMapper.countOrdersByCheckoutTime(begin, endDatePlusOne, null);
+        // ========== 2. 在内存中对汇总数据进行【累加】处理 ==========
 
-        // d. 获取时间段内，【每日】的新增用户数列表
-        List<CountUser> newUserList = userMapper.countUserByCreateTime(begin, endDatePlusOne);
-
-
-        // ========== 3. 在内存中对查询结果进行【累加】处理 ==========
-
-        // a. 累加总营业额
-        if (turnoverList != null && !turnoverList.isEmpty()) {
-            // 使用Stream API对BigDecimal进行求和
-            totalTurnover = turnoverList.stream()
-                    .map(SumAmount::getTurnover)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        for (DailyBusinessStats stats : statsList) {
+            totalTurnover = totalTurnover.add(stats.getTurnover());
+            totalValidOrderCount += stats.getValidOrderCount();
+            totalOrderCount += stats.getTotalOrderCount();
+            totalNewUsers += stats.getNewUsers();
         }
 
-        // b. 累加总有效订单数
-        if (validOrderList != null && !validOrderList.isEmpty()) {
-            // 使用Stream API对Long进行求和
-            totalValidOrderCount = validOrderList.stream()
-                    .mapToLong(CountOrders::getOrdersCount)
-                    .sum();
-        }
 
-        // c. 累加总订单数
-        if (allOrderList != null && !allOrderList.isEmpty()) {
-            totalOrderCount = allOrderList.stream()
-                    .mapToLong(CountOrders::getOrdersCount)
-                    .sum();
-        }
-
-        // d. 累加总新增用户数
-        if (newUserList != null && !newUserList.isEmpty()) {
-            totalNewUsers = newUserList.stream()
-                    .mapToLong(CountUser::getNewUserCount)
-                    .sum();
-        }
-
-
-        // ========== 4. 基于累加结果，进行最终计算 ==========
+        // ========== 3. 基于累加结果，进行最终计算 ==========
 
         // a. 计算订单完成率
         Double orderCompletionRate = (totalOrderCount == 0) ? 0.0 : totalValidOrderCount.doubleValue() / totalOrderCount;
@@ -100,7 +90,7 @@ public class WorkspaceServiceImpl implements WorkspaceService {
         Double unitPrice = (totalValidOrderCount == 0) ? 0.0 : totalTurnover.doubleValue() / totalValidOrderCount;
 
 
-        // ========== 5. 封装并返回最终的BusinessDataVO ==========
+        // ========== 4. 封装并返回最终的BusinessDataVO ==========
 
         return BusinessDataVO.builder()
                 .turnover(totalTurnover.doubleValue())
@@ -120,43 +110,40 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      */
     @Override
     public OrderOverViewVO overviewOrders() {
+        // 直接读取实时计数器，不查询数据库
+        Map<String, Long> counters = workspaceCounter.today();
         OrderOverViewVO orderOverViewVO = new OrderOverViewVO(0,0,0,0,0);
-        LocalDate today = LocalDate.now();
-        List<SqlOrderStatistics> statistics = orderMapper.statistics(today, today.plusDays(1));
-
-        Integer allOrders = 0;
-        if (statistics != null && !statistics.isEmpty()) {
-            for (SqlOrderStatistics statistic : statistics) {
-                Integer status = statistic.getStatus();
-                Integer count = statistic.getCount();
-                //使用if-else判断来设置不同状态的订单数量
-                if (status.equals(Orders.TO_BE_CONFIRMED)) {
-                    orderOverViewVO.setWaitingOrders(count);
-                } else if (status.equals(Orders.CONFIRMED)) {
-                    orderOverViewVO.setDeliveredOrders(count);
-                } else if (status.equals(Orders.COMPLETED)) {
-                    orderOverViewVO.setCompletedOrders(count);
-                } else if (status.equals(Orders.CANCELLED)) {
-                    orderOverViewVO.setCancelledOrders(count);
-                }
-                // 统计所有订单数量
-                allOrders += count;
-            }
+        orderOverViewVO.setWaitingOrders(count(counters, Orders.TO_BE_CONFIRMED));
+        orderOverViewVO.setDeliveredOrders(count(counters, Orders.CONFIRMED));
+        orderOverViewVO.setCompletedOrders(count(counters, Orders.COMPLETED));
+        orderOverViewVO.setCancelledOrders(count(counters, Orders.CANCELLED));
+        // 统计所有订单数量
+        int allOrders = 0;
+        for (Integer status : new Integer[]{Orders.TO_BE_CONFIRMED, Orders.CONFIRMED,
+                Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED, Orders.CANCELLED}) {
+            allOrders += count(counters, status);
         }
-
         orderOverViewVO.setAllOrders(allOrders);
 
         return orderOverViewVO;
     }
 
+    private int count(Map<String, Long> counters, Integer status) {
+        return counters.getOrDefault(WorkspaceCounter.status(status), 0L).intValue();
+    }
+
     /**
      * 查询菜品总览
      * @return DishOverViewVO 菜品概览数据
      */
     @Override
     public DishOverViewVO overviewDishes() {
-        Integer discontinued = dishMapper.dishCountByStatus(0);
-        Integer sold =  dishMapper.dishCountByStatus(1);
+        // 两个统计互不依赖，并行查询
+        AsyncQueryExecutor.Batch batch = asyncQueryExecutor.batch();
+        Future<Integer> discontinuedFuture = batch.submit(() -> dishMapper.dishCountByStatus(0));
+        Future<Integer> soldFuture = batch.submit(() -> dishMapper.dishCountByStatus(1));
+        Integer discontinued = batch.get(discontinuedFuture);
+        Integer sold = batch.get(soldFuture);
         if (discontinued == null) {
             discontinued = 0;
         }
@@ -175,8 +162,12 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      */
     @Override
     public SetmealOverViewVO overviewSetmeals() {
-        Integer discontinued = setmealMapper.setmealCountByStatus(0);
-        Integer sold = setmealMapper.setmealCountByStatus(1);
+        // 两个统计互不依赖，并行查询
+        AsyncQueryExecutor.Batch batch = asyncQueryExecutor.batch();
+        Future<Integer> discontinuedFuture = batch.submit(() -> setmealMapper.setmealCountByStatus(0));
+        Future<Integer> soldFuture = batch.submit(() -> setmealMapper.setmealCountByStatus(1));
+        Integer discontinued = batch.get(discontinuedFuture);
+        Integer sold = batch.get(soldFuture);
         if (discontinued == null) {
             discontinued = 0;
         }
@@ -0,0 +1,101 @@
+package com.sky.statemachine;
+
+import com.sky.constant.MessageConstant;
+import com.sky.entity.Orders;
+import com.sky.event.OrderStatusChangedEvent;
+import com.sky.exception.OrderBusinessException;
+import com.sky.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 订单状态机
+ * 每次流转都是一条带状态条件的更新语句(where status in (...))，根据影响行数判断是否成功，
+ * 不需要先查询订单，并发的商家操作和超时任务之间不会互相覆盖
+ * 流转成功后在同一事务中发布OrderStatusChangedEvent
+ */
+@Component
+@Slf4j
+public class OrderStateMachine {
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * 流转单个订单，订单不存在或当前状态不允许该流转时抛出异常
+     * @param id 订单id
+     * @param transition 流转
+     * @param orders 需要同时修改的字段，如取消原因、取消时间，可以为null
+     */
+    @Transactional
+    public void transition(Long id, OrderTransition transition, Orders orders) {
+        if (tryTransition(id, transition, orders)) {
+            return;
+        }
+        // 更新失败时再查询一次，区分订单不存在和状态错误
+        if (orderMapper.getStatusById(id) == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+        throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+    }
+
+    /**
+     * 流转单个订单
+     * @param id 订单id
+     * @param transition 流转
+     * @param orders 需要同时修改的字段，可以为null
+     * @return 订单不存在或当前状态不允许该流转时返回false
+     */
+    @Transactional
+    public boolean tryTransition(Long id, OrderTransition transition, Orders orders) {
+        if (orders == null) {
+            orders = new Orders();
+        }
+        orders.setId(id);
+        if (orderMapper.updateStatusById(transition, orders) == 0) {
+            return false;
+        }
+        // 只允许从一个状态流转时流转前状态是确定的；允许从多个状态流转时不再查询，流转前状态记为null
+        Integer fromStatus = transition.getFrom().size() == 1 ? transition.getFrom().get(0) : null;
+        applicationEventPublisher.publishEvent(new OrderStatusChangedEvent(transition,
+                Collections.singletonList(id), Collections.singletonList(fromStatus), 1));
+        return true;
+    }
+
+    /**
+     * 按订单id批量流转，先锁定仍允许流转的订单再更新，不满足流转条件的订单保持不变
+     * @param ids
+     * @param transition
+     * @param orders 需要同时修改的字段，可以为null
+     * @return 实际流转的订单id
+     */
+    @Transactional
+    public List<Long> transitionByIds(List<Long> ids, OrderTransition transition, Orders orders) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Orders> locked = orderMapper.lockByStatus(ids, transition.getFrom());
+        if (locked.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> lockedIds = new ArrayList<>(locked.size());
+        List<Integer> fromStatuses = new ArrayList<>(locked.size());
+        for (Orders order : locked) {
+            lockedIds.add(order.getId());
+            fromStatuses.add(order.getStatus());
+        }
+        orderMapper.updateStatusByIds(lockedIds, transition, orders == null ? new Orders() : orders);
+        applicationEventPublisher.publishEvent(
+                new OrderStatusChangedEvent(transition, lockedIds, fromStatuses, lockedIds.size()));
+        return lockedIds;
+    }
+}
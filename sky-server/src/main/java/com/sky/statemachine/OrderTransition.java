@@ -0,0 +1,37 @@
+package com.sky.statemachine;
+
+import com.sky.entity.Orders;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 订单状态流转表
+ * 订单状态：1 待付款，2 待接单，3 已接单，4 派送中，5 已完成，6 已取消
+ */
+@Getter
+@AllArgsConstructor
+public enum OrderTransition {
+
+    PAY("支付成功", Arrays.asList(Orders.PENDING_PAYMENT), Orders.TO_BE_CONFIRMED, false),
+    CONFIRM("接单", Arrays.asList(Orders.TO_BE_CONFIRMED), Orders.CONFIRMED, false),
+    REJECT("拒单", Arrays.asList(Orders.TO_BE_CONFIRMED), Orders.CANCELLED, true),
+    DELIVER("派送", Arrays.asList(Orders.CONFIRMED), Orders.DELIVERY_IN_PROGRESS, false),
+    COMPLETE("完成", Arrays.asList(Orders.DELIVERY_IN_PROGRESS), Orders.COMPLETED, false),
+    //用户只能直接取消待付款和待接单的订单
+    CANCEL_BY_USER("用户取消", Arrays.asList(Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED), Orders.CANCELLED, true),
+    //商家可以取消待付款、待接单、已接单、派送中的订单
+    CANCEL_BY_ADMIN("商家取消", Arrays.asList(Orders.PENDING_PAYMENT, Orders.TO_BE_CONFIRMED,
+            Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS), Orders.CANCELLED, true),
+    TIMEOUT_CANCEL("超时取消", Arrays.asList(Orders.PENDING_PAYMENT), Orders.CANCELLED, false);
+
+    private final String description;
+    //允许流转的当前状态
+    private final List<Integer> from;
+    //流转后的状态
+    private final Integer to;
+    //已支付的订单是否修改支付状态为退款
+    private final boolean refund;
+}
@@ -0,0 +1,91 @@
+package com.sky.task;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.OrderTimeoutProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * 订单超时调度的公共逻辑：启动时恢复待付款订单，到期订单分批交给OrderTimeoutConsumer取消
+ */
+@Slf4j
+public abstract class AbstractOrderTimeoutScheduler implements OrderTimeoutScheduler {
+
+    // 启动恢复时每批查询的订单数量
+    private static final int RECOVER_BATCH_SIZE = 500;
+
+    @Autowired
+    protected OrderTimeoutProperties orderTimeoutProperties;
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderTimeoutConsumer orderTimeoutConsumer;
+
+    /**
+     * 启动完成后，将所有待付款订单重新登记超时，已超时的订单会在下一次调度时取消
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        int count = 0;
+        Long lastId = 0L;
+        List<Orders> list;
+        do {
+            list = orderMapper.listByStatus(Orders.PENDING_PAYMENT, lastId, RECOVER_BATCH_SIZE);
+            for (Orders orders : list) {
+                schedule(orders.getNumber(), orders.getOrderTime());
+            }
+            if (!list.isEmpty()) {
+                lastId = list.get(list.size() - 1).getId();
+                count += list.size();
+            }
+        } while (list.size() == RECOVER_BATCH_SIZE);
+        log.info("待付款订单超时调度恢复完成，订单数: {}", count);
+    }
+
+    /**
+     * 将到期的订单按批次交给OrderTimeoutConsumer取消
+     * @param orderNumbers
+     */
+    protected void fire(List<String> orderNumbers) {
+        int batchSize = orderTimeoutProperties.getBatchSize();
+        for (int i = 0; i < orderNumbers.size(); i += batchSize) {
+            List<String> batch = orderNumbers.subList(i, Math.min(i + batchSize, orderNumbers.size()));
+            try {
+                orderTimeoutConsumer.handleTimeoutOrders(batch);
+                ack(batch);
+            } catch (Exception e) {
+                log.error("超时订单取消失败，稍后重试，订单数: {}", batch.size(), e);
+                retry(batch);
+            }
+        }
+    }
+
+    /**
+     * 订单取消已提交，需要确认的实现在此移除已取出的订单
+     * @param orderNumbers
+     */
+    protected void ack(List<String> orderNumbers) {
+    }
+
+    /**
+     * 取消失败的订单重新登记，下次调度时重试
+     * @param orderNumbers
+     */
+    protected abstract void retry(List<String> orderNumbers);
+
+    /**
+     * 计算订单的超时时间
+     * @param orderTime
+     * @return 超时时间(毫秒)
+     */
+    protected long expiration(LocalDateTime orderTime) {
+        return orderTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + orderTimeoutProperties.getTtl();
+    }
+}
@@ -0,0 +1,84 @@
+package com.sky.task;
+
+
+import com.sky.entity.AddressBook;
+import com.sky.mapper.AddressBookMapper;
+import com.sky.service.GeoService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+@Slf4j
+public class AddressLocationTask {
+
+    // 每批处理的地址数量
+    private static final int BATCH_SIZE = 200;
+    // 解析失败后的重试间隔从1小时开始逐次翻倍，最长7天
+    private static final long RETRY_BASE_HOURS = 1;
+    private static final long RETRY_MAX_HOURS = 7 * 24;
+
+    @Autowired
+    private AddressBookMapper addressBookMapper;
+    @Autowired
+    private GeoService geoService;
+
+    /**
+     * 重新解析配送距离缺失或基于旧店铺坐标计算的地址
+     * 启动1分钟后执行一次，之后每小时执行一次，店铺地址变更后地址簿的配送距离会在后台逐步更新
+     * 解析失败的地址按退避间隔重试，无法解析的地址不会每小时都调用地图接口
+     */
+    @Scheduled(initialDelay = 60 * 1000, fixedDelay = 60 * 60 * 1000)
+    public void resolveStaleAddress() {
+        String shopLocation;
+        try {
+            shopLocation = geoService.getShopLocation().toLatLng();
+        } catch (Exception e) {
+            log.error("店铺坐标解析失败，跳过本次地址簿配送距离更新: {}", e.getMessage());
+            return;
+        }
+
+        int resolved = 0;
+        int failed = 0;
+        Long lastId = 0L;
+        LocalDateTime now = LocalDateTime.now();
+        List<AddressBook> list;
+        do {
+            list = addressBookMapper.listStaleLocation(shopLocation, now, lastId, BATCH_SIZE);
+            for (AddressBook addressBook : list) {
+                try {
+                    geoService.resolveAddressBook(addressBook);
+                    resolved++;
+                } catch (Exception e) {
+                    // 单条失败不影响后续地址，到重试时间后再解析
+                    failed++;
+                    int failCount = addressBook.getResolveFailCount() == null ? 1 : addressBook.getResolveFailCount() + 1;
+                    addressBookMapper.updateResolveFailure(addressBook.getId(), failCount, now.plusHours(retryHours(failCount)));
+                    log.warn("地址簿配送距离计算失败，地址簿id: {}，连续失败次数: {}，原因: {}",
+                            addressBook.getId(), failCount, e.getMessage());
+                }
+            }
+            if (!list.isEmpty()) {
+                lastId = list.get(list.size() - 1).getId();
+            }
+        } while (list.size() == BATCH_SIZE);
+
+        if (resolved > 0 || failed > 0) {
+            log.info("地址簿配送距离更新完成，成功: {}，失败: {}", resolved, failed);
+        }
+    }
+
+    /**
+     * 第n次失败后的重试间隔(小时)
+     * @param failCount 连续失败次数
+     * @return
+     */
+    private long retryHours(int failCount) {
+        int shift = Math.min(failCount - 1, 10);
+        return Math.min(RETRY_BASE_HOURS << shift, RETRY_MAX_HOURS);
+    }
+}
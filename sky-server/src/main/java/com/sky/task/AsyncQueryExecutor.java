@@ -0,0 +1,117 @@
+package com.sky.task;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.QueryTimeoutException;
+import com.sky.properties.AsyncQueryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并行执行互不依赖的只读查询
+ * 用法: 通过batch()创建一组查询，submit提交后用get按提交顺序取结果，
+ * 同一组查询共用一个截止时间，超时后取消组内未完成的查询
+ * 查询在其他线程执行，不参与调用方的事务，只用于只读查询
+ */
+@Component
+@Slf4j
+public class AsyncQueryExecutor {
+
+    @Autowired
+    private AsyncQueryProperties asyncQueryProperties;
+
+    // 不注册为Spring Bean，避免影响@Async使用的默认线程池
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(asyncQueryProperties.getThreads(), asyncQueryProperties.getThreads(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(asyncQueryProperties.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "async-query-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // 队列已满时由请求线程执行，退化为串行查询
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 创建一组并行查询，截止时间从此时开始计算
+     * @return
+     */
+    public Batch batch() {
+        return new Batch(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(asyncQueryProperties.getTimeout()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 一组共用截止时间的查询
+     */
+    public class Batch {
+
+        private final long deadline;
+        private final List<Future<?>> futures = new ArrayList<>();
+
+        private Batch(long deadline) {
+            this.deadline = deadline;
+        }
+
+        public <T> Future<T> submit(Callable<T> query) {
+            Future<T> future = executor.submit(query);
+            futures.add(future);
+            return future;
+        }
+
+        /**
+         * 等待查询结果，超过截止时间时取消组内所有查询并抛出异常
+         * @param future
+         * @return
+         */
+        public <T> T get(Future<T> future) {
+            try {
+                return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                cancelAll();
+                log.warn("并行查询超时，超时时间: {}ms", asyncQueryProperties.getTimeout());
+                throw new QueryTimeoutException(MessageConstant.QUERY_TIMEOUT);
+            } catch (InterruptedException e) {
+                cancelAll();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("并行查询被中断", e);
+            } catch (ExecutionException e) {
+                cancelAll();
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IllegalStateException("并行查询失败", cause);
+            }
+        }
+
+        private void cancelAll() {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+}
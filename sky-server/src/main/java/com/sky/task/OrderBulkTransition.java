@@ -0,0 +1,126 @@
+package com.sky.task;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import com.sky.statemachine.OrderStateMachine;
+import com.sky.statemachine.OrderTransition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 订单状态批量流转
+ * 按id游标分块读取待流转的订单，每块在独立的短事务中锁定并更新，多个块并行处理，
+ * 避免逐条更新和长时间占用数据库连接
+ */
+@Component
+@Slf4j
+public class OrderBulkTransition {
+
+    // 每块的订单数量
+    private static final int CHUNK_SIZE = 500;
+    // 并行处理的块数
+    private static final int PARALLELISM = 4;
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 不注册为Spring Bean，避免影响@Async使用的默认线程池
+    private final ThreadPoolExecutor executor = createExecutor();
+
+    /**
+     * 将下单时间不晚于time且当前状态允许流转的订单批量流转
+     * @param job 任务名称，用于日志和监控指标
+     * @param transition 流转
+     * @param time 下单时间上限
+     * @param target 需要同时修改的字段，可以为null
+     * @return 实际流转的订单id
+     */
+    public List<Long> transition(String job, OrderTransition transition, LocalDateTime time, Orders target) {
+        long start = System.currentTimeMillis();
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        Long lastId = 0L;
+        List<Long> ids;
+        do {
+            ids = orderMapper.listIdsByStatusAndOrderTime(transition.getFrom(), time, lastId, CHUNK_SIZE);
+            if (ids.isEmpty()) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+            List<Long> chunk = ids;
+            // 队列已满时由当前线程执行，限制内存中等待的块数
+            futures.add(executor.submit(() -> processChunk(job, chunk, transition, target)));
+        } while (ids.size() == CHUNK_SIZE);
+
+        List<Long> affected = new ArrayList<>();
+        int failed = 0;
+        for (Future<List<Long>> future : futures) {
+            try {
+                affected.addAll(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("订单批量流转被中断", e);
+            } catch (ExecutionException e) {
+                // 单块失败不影响其他块，未流转的订单下次任务再处理
+                failed++;
+                log.error("订单批量流转失败，任务: {}", job, e.getCause());
+            }
+        }
+        log.info("订单批量流转完成，任务: {}，块数: {}，失败块数: {}，流转订单数: {}，耗时: {}ms",
+                job, futures.size(), failed, affected.size(), System.currentTimeMillis() - start);
+        return affected;
+    }
+
+    /**
+     * 每块在独立事务中锁定仍允许流转的订单并更新
+     */
+    private List<Long> processChunk(String job, List<Long> ids, OrderTransition transition, Orders target) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<Long> locked = orderStateMachine.transitionByIds(ids, transition, target);
+        sample.stop(Timer.builder("sky.order.bulk.chunk")
+                .description("订单批量流转每块耗时")
+                .tag("job", job)
+                .register(meterRegistry));
+        Counter.builder("sky.order.bulk.rows")
+                .description("订单批量流转的订单数")
+                .tag("job", job)
+                .register(meterRegistry)
+                .increment(locked.size());
+        return locked;
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(PARALLELISM, PARALLELISM, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(PARALLELISM * 2),
+                r -> {
+                    Thread thread = new Thread(r, "order-bulk-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,61 +1,60 @@
 package com.sky.task;
 
-import com.sky.config.OrderDelayQueueConfig;
 import com.sky.entity.Orders;
 import com.sky.mapper.OrderMapper;
+import com.sky.statemachine.OrderStateMachine;
+import com.sky.statemachine.OrderTransition;
 import com.sky.webSocket.WebSocketServer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-// 消费者监听订单超时队列
+// 取消超时未付款的订单，由OrderTimeoutScheduler的各实现批量调用
 @Component
 @Slf4j
 public class OrderTimeoutConsumer {
+
+    private static final String CANCEL_REASON = "订单超时，自动取消";
+
     @Autowired
     private OrderMapper orderMapper;
     @Autowired
     private WebSocketServer webSocketServer;
-
-    @RabbitListener(queues = OrderDelayQueueConfig.ORDER_QUEUE_DLX)
-    public void handleTimeoutOrder(String orderNumber) {
-        System.out.println("接收到超时订单消息，订单号: " + orderNumber);
-
-        if (orderNumber == null) {
-            log.warn("收到空的订单消息，已忽略");
-            return;
-        }
-        // 1. 根据订单号查询订单的最新状态
-        Orders order = orderMapper.getByNumber(orderNumber);
-
-        if (order == null) {
-            log.warn("根据订单号未找到订单，可能已被删除，订单号: {}", orderNumber);
-            return;
-        }
-
-        // 如果订单状态不是“待付款”，说明用户已经支付或手动取消了，无需处理
-        if (!order.getStatus().equals(Orders.PENDING_PAYMENT)) {
-            log.info("订单状态已改变（已支付或已取消），无需处理超时，订单号: {}", orderNumber);
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    /**
+     * 批量取消超时订单
+     * 锁定仍为"待付款"的订单后一次更新取消，已支付或已取消的订单不受影响
+     * @param orderNumbers
+     */
+    public void handleTimeoutOrders(List<String> orderNumbers) {
+        if (orderNumbers == null || orderNumbers.isEmpty()) {
             return;
         }
-        // 3. 确认订单超时，执行取消订单的业务逻辑
-        log.info("订单超时，准备取消订单，订单号: {}", orderNumber);
-
-        // 更新订单状态为“已取消”
-        Orders updatedOrder = Orders.builder()
-                .id(order.getId())
-                .status(Orders.CANCELLED) // 假设你有“已取消”的状态
-                .cancelReason("订单超时，自动取消")
+        List<Orders> ordersList = orderMapper.listByNumbers(orderNumbers);
+        List<Long> ids = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+        Orders orders = Orders.builder()
+                .cancelReason(CANCEL_REASON)
                 .cancelTime(LocalDateTime.now())
                 .build();
+        List<Long> cancelledIds = orderStateMachine.transitionByIds(ids, OrderTransition.TIMEOUT_CANCEL, orders);
+        log.info("超时订单取消完成，订单数: {}，实际取消: {}", orderNumbers.size(), cancelledIds.size());
+        if (cancelledIds.isEmpty()) {
+            return;
+        }
 
-        orderMapper.update(updatedOrder);
-
-        // 通知商家端
-        webSocketServer.sendToAdmin(3,order.getId(),order.getNumber());
-
+        // 通知商家端，只包含本批实际取消的订单，整批合并为一条消息
+        Set<Long> cancelled = new HashSet<>(cancelledIds);
+        List<Orders> cancelledList = ordersList.stream()
+                .filter(order -> cancelled.contains(order.getId()))
+                .collect(Collectors.toList());
+        webSocketServer.sendToAdmin(3, cancelledList);
     }
 }
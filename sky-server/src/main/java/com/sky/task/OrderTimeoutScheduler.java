@@ -0,0 +1,17 @@
+package com.sky.task;
+
+import java.time.LocalDateTime;
+
+/**
+ * 订单超时调度，订单超时未付款时交给OrderTimeoutConsumer取消
+ * 具体实现由sky.order.timeout.mode选择
+ */
+public interface OrderTimeoutScheduler {
+
+    /**
+     * 登记订单的超时取消
+     * @param orderNumber 订单号
+     * @param orderTime 下单时间
+     */
+    void schedule(String orderNumber, LocalDateTime orderTime);
+}
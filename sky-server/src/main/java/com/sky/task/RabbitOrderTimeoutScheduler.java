@@ -0,0 +1,60 @@
+package com.sky.task;
+
+import com.sky.config.OrderDelayQueueConfig;
+import com.sky.properties.OrderTimeoutProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * 基于RabbitMQ死信队列的订单超时调度
+ * 消息过期后转发到死信队列，批量消费后交给OrderTimeoutConsumer取消订单
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.order.timeout", name = "mode", havingValue = "rabbit")
+@Slf4j
+public class RabbitOrderTimeoutScheduler implements OrderTimeoutScheduler {
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+    @Autowired
+    private OrderTimeoutProperties orderTimeoutProperties;
+    @Autowired
+    private OrderTimeoutConsumer orderTimeoutConsumer;
+
+    @Override
+    public void schedule(String orderNumber, LocalDateTime orderTime) {
+        long expiration = orderTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                + orderTimeoutProperties.getTtl();
+        long ttl = Math.max(0, expiration - System.currentTimeMillis());
+        log.info("发送延迟消息，订单号: {}，延时: {}ms", orderNumber, ttl);
+        rabbitTemplate.convertAndSend(
+                OrderDelayQueueConfig.ORDER_EXCHANGE_NORMAL,
+                OrderDelayQueueConfig.ORDER_ROUTING_KEY_NORMAL,
+                orderNumber, // 发送订单号
+                message -> {
+                    // 设置消息的过期时间
+                    message.getMessageProperties().setExpiration(String.valueOf(ttl));
+                    return message;
+                }
+        );
+    }
+
+    /**
+     * 批量消费死信队列中的超时订单号，整批确认，处理失败时整批重新入队(取消操作是幂等的)
+     * @param orderNumbers
+     */
+    @RabbitListener(queues = OrderDelayQueueConfig.ORDER_QUEUE_DLX,
+            containerFactory = OrderDelayQueueConfig.ORDER_BATCH_CONTAINER_FACTORY)
+    public void handleTimeoutOrders(List<String> orderNumbers) {
+        log.info("接收到超时订单消息，订单数: {}", orderNumbers.size());
+        orderTimeoutConsumer.handleTimeoutOrders(orderNumbers);
+    }
+}
@@ -0,0 +1,90 @@
+package com.sky.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于Redis有序集合的订单超时调度，score为超时时间，多个节点共享同一个有序集合
+ * 到期订单通过Lua脚本原子地移入处理中集合(score为认领的截止时间)，同一订单只会被一个节点取出；
+ * 取消提交后才从处理中集合删除，节点在取消前宕机时，认领超时的订单会重新调度
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.order.timeout", name = "mode", havingValue = "redis")
+@Slf4j
+public class RedisOrderTimeoutScheduler extends AbstractOrderTimeoutScheduler {
+
+    private static final String ORDER_TIMEOUT_KEY = "order:timeout";
+    private static final String PROCESSING_KEY = "order:timeout:processing";
+
+    // 先将认领已超时(score不大于ARGV[1])的订单放回KEYS[1]，
+    // 再取出最多ARGV[2]个score不大于ARGV[1]的成员，移入KEYS[2]，score为认领截止时间ARGV[3]
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "local expired = redis.call('zrangebyscore', KEYS[2], '-inf', ARGV[1]) " +
+                    "for _, item in ipairs(expired) do " +
+                    "redis.call('zadd', KEYS[1], ARGV[1], item) redis.call('zrem', KEYS[2], item) end " +
+                    "local items = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'limit', 0, ARGV[2]) " +
+                    "for _, item in ipairs(items) do " +
+                    "redis.call('zadd', KEYS[2], ARGV[3], item) redis.call('zrem', KEYS[1], item) end " +
+                    "return items",
+            List.class);
+
+    // 将KEYS[2]中的ARGV[2..n]放回KEYS[1]，score为ARGV[1]
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV do " +
+                    "redis.call('zadd', KEYS[1], ARGV[1], ARGV[i]) redis.call('zrem', KEYS[2], ARGV[i]) end " +
+                    "return #ARGV - 1",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Override
+    public void schedule(String orderNumber, LocalDateTime orderTime) {
+        stringRedisTemplate.opsForZSet().add(ORDER_TIMEOUT_KEY, orderNumber, expiration(orderTime));
+    }
+
+    /**
+     * 轮询到期订单，每次认领一批，直到没有到期订单
+     */
+    @Scheduled(fixedDelayString = "${sky.order.timeout.tick:1000}")
+    @SuppressWarnings("unchecked")
+    public void poll() {
+        int batchSize = orderTimeoutProperties.getBatchSize();
+        List<String> batch;
+        do {
+            long now = System.currentTimeMillis();
+            batch = stringRedisTemplate.execute(CLAIM_SCRIPT, Arrays.asList(ORDER_TIMEOUT_KEY, PROCESSING_KEY),
+                    String.valueOf(now), String.valueOf(batchSize),
+                    String.valueOf(now + orderTimeoutProperties.getClaimTimeout()));
+            if (batch == null || batch.isEmpty()) {
+                return;
+            }
+            log.info("Redis到期订单数: {}", batch.size());
+            fire(batch);
+        } while (batch.size() == batchSize);
+    }
+
+    @Override
+    protected void ack(List<String> orderNumbers) {
+        stringRedisTemplate.opsForZSet().remove(PROCESSING_KEY, orderNumbers.toArray());
+    }
+
+    @Override
+    protected void retry(List<String> orderNumbers) {
+        List<String> args = new ArrayList<>(orderNumbers.size() + 1);
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.addAll(orderNumbers);
+        stringRedisTemplate.execute(RELEASE_SCRIPT, Arrays.asList(ORDER_TIMEOUT_KEY, PROCESSING_KEY), args.toArray());
+    }
+}
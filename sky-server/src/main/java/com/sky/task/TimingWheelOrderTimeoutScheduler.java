@@ -0,0 +1,62 @@
+package com.sky.task;
+
+import com.sky.utils.TimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 基于进程内分层时间轮的订单超时调度，时间轮不持久化，启动时从数据库恢复
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.order.timeout", name = "mode", havingValue = "wheel", matchIfMissing = true)
+@Slf4j
+public class TimingWheelOrderTimeoutScheduler extends AbstractOrderTimeoutScheduler {
+
+    private TimingWheel<String> timingWheel;
+    // 登记时已经超时或取消失败待重试的订单，下一格处理
+    private final Queue<String> overdue = new ConcurrentLinkedQueue<>();
+
+    @PostConstruct
+    public void init() {
+        timingWheel = new TimingWheel<>(orderTimeoutProperties.getTick(),
+                orderTimeoutProperties.getWheelSize(), System.currentTimeMillis());
+    }
+
+    @Override
+    public void schedule(String orderNumber, LocalDateTime orderTime) {
+        if (!timingWheel.add(orderNumber, expiration(orderTime))) {
+            overdue.offer(orderNumber);
+        }
+    }
+
+    /**
+     * 每格推进一次时间轮，取消到期的订单
+     */
+    @Scheduled(fixedDelayString = "${sky.order.timeout.tick:1000}")
+    public void tick() {
+        List<String> expired = new ArrayList<>();
+        String orderNumber;
+        while ((orderNumber = overdue.poll()) != null) {
+            expired.add(orderNumber);
+        }
+        expired.addAll(timingWheel.advance(System.currentTimeMillis()));
+        if (!expired.isEmpty()) {
+            log.info("时间轮到期订单数: {}，剩余待超时订单数: {}", expired.size(), timingWheel.size());
+            fire(expired);
+        }
+    }
+
+    @Override
+    protected void retry(List<String> orderNumbers) {
+        overdue.addAll(orderNumbers);
+    }
+}
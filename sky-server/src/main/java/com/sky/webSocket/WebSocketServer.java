@@ -1,6 +1,7 @@
 package com.sky.webSocket;
 
 import com.alibaba.fastjson.JSON;
+import com.sky.entity.Orders;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -10,8 +11,10 @@ import javax.websocket.OnOpen;
 import javax.websocket.Session;
 import javax.websocket.server.PathParam;
 import javax.websocket.server.ServerEndpoint;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -74,17 +77,7 @@ public class WebSocketServer {
     }
 
     public void sendToAdmin(Integer type,Long orderId,String orderNumber){
-        String messageType;
-        if (type == 1) {
-            messageType = "来单提醒";
-        } else if (type == 2) {
-            messageType = "客户催单";
-        } else if (type == 3) {
-            // TODO 该类型前端未实现
-            messageType = "订单超时未支付已取消";
-        } else {
-            messageType = "未知类型: " + type; // 处理未知情况
-        }
+        String messageType = messageType(type);
         log.info("发送消息到管理员，类型：{}，订单ID：{}，订单号：{}", messageType, orderId, orderNumber);
 
         Map map = new HashMap<>();
@@ -97,4 +90,47 @@ public class WebSocketServer {
 
     }
 
+    /**
+     * 批量通知，多个订单合并为一条消息
+     *
+     * @param type 消息类型
+     * @param ordersList 订单列表，需要包含id和订单号
+     */
+    public void sendToAdmin(Integer type, List<Orders> ordersList) {
+        if (ordersList == null || ordersList.isEmpty()) {
+            return;
+        }
+        if (ordersList.size() == 1) {
+            Orders orders = ordersList.get(0);
+            sendToAdmin(type, orders.getId(), orders.getNumber());
+            return;
+        }
+        log.info("发送消息到管理员，类型：{}，订单数：{}", messageType(type), ordersList.size());
+
+        List<Long> orderIds = new ArrayList<>(ordersList.size());
+        List<String> orderNumbers = new ArrayList<>(ordersList.size());
+        for (Orders orders : ordersList) {
+            orderIds.add(orders.getId());
+            orderNumbers.add(orders.getNumber());
+        }
+        Map<String, Object> map = new HashMap<>();
+        map.put("type", type);
+        map.put("orderIds", orderIds);
+        map.put("content", ordersList.size() + "个订单，订单号" + String.join(",", orderNumbers));
+        sendToAllClient(JSON.toJSONString(map));
+    }
+
+    private String messageType(Integer type) {
+        if (type == 1) {
+            return "来单提醒";
+        } else if (type == 2) {
+            return "客户催单";
+        } else if (type == 3) {
+            // TODO 该类型前端未实现
+            return "订单超时未支付已取消";
+        } else {
+            return "未知类型: " + type; // 处理未知情况
+        }
+    }
+
 }
@@ -0,0 +1,115 @@
+package com.sky.benchmark;
+
+import com.sky.entity.DailyBusinessStats;
+import com.sky.mapper.DailyBusinessStatsMapper;
+import com.sky.service.impl.WorkspaceServiceImpl;
+import com.sky.vo.BusinessDataVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 导出运营数据报表时读取数据: 合计和每天各调用一次getBusinessData与一次查询整个日期范围后在内存中汇总对比
+ * 只比较读取和汇总，写Excel的开销两者相同，不包含在内；SQL条数在准备阶段输出，见MapperFixture中关于网络往返的说明
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusinessReportExportBenchmark {
+
+    // 导出的日期范围，默认导出最近30天，最多366天
+    @Param({"30", "366"})
+    private int days;
+
+    private MapperFixture fixture;
+    private DailyBusinessStatsMapper dailyBusinessStatsMapper;
+    private WorkspaceServiceImpl workspaceService;
+    private LocalDate begin;
+    private LocalDate end;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = new MapperFixture("export" + days);
+        // 使用过去的日期，getBusinessData只有查询今天时读取实时计数器
+        end = LocalDate.of(2024, 12, 31);
+        begin = end.minusDays(days - 1);
+        List<Object[]> rows = new ArrayList<>();
+        for (LocalDate date = end.minusDays(800); !date.isAfter(end); date = date.plusDays(1)) {
+            rows.add(new Object[]{Date.valueOf(date), 12345.67, 300, 320, 25});
+        }
+        fixture.jdbcTemplate().batchUpdate("insert into daily_business_stats(stat_date, turnover, " +
+                "valid_order_count, total_order_count, new_users) values (?, ?, ?, ?, ?)", rows);
+        dailyBusinessStatsMapper = fixture.getMapper(DailyBusinessStatsMapper.class);
+        workspaceService = new WorkspaceServiceImpl();
+        ReflectionTestUtils.setField(workspaceService, "dailyBusinessStatsMapper", dailyBusinessStatsMapper);
+
+        long before = fixture.queries();
+        perDay();
+        long perDay = fixture.queries() - before;
+        before = fixture.queries();
+        singlePass();
+        System.out.printf("%n导出%d天: 逐天查询%d条SQL，一次查询%d条SQL%n",
+                days, perDay, fixture.queries() - before);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    /**
+     * 原实现: 合计查询一次，每天再查询一次
+     */
+    @Benchmark
+    public List<BusinessDataVO> perDay() {
+        List<BusinessDataVO> result = new ArrayList<>(days + 1);
+        result.add(workspaceService.getBusinessData(begin, end));
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            result.add(workspaceService.getBusinessData(date, date));
+        }
+        return result;
+    }
+
+    /**
+     * 当前实现(ReportServiceImpl.writeExcel): 查询一次，合计和每日明细在内存中计算
+     */
+    @Benchmark
+    public List<BusinessDataVO> singlePass() {
+        List<DailyBusinessStats> statsList = dailyBusinessStatsMapper.list(begin, end);
+        Map<LocalDate, DailyBusinessStats> statsMap = new HashMap<>(statsList.size() * 2);
+        for (DailyBusinessStats stats : statsList) {
+            statsMap.put(stats.getStatDate(), stats);
+        }
+        List<BusinessDataVO> result = new ArrayList<>(days + 1);
+        result.add(workspaceService.sumBusinessData(statsList));
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            DailyBusinessStats stats = statsMap.get(date);
+            result.add(workspaceService.sumBusinessData(
+                    stats == null ? Collections.emptyList() : Collections.singletonList(stats)));
+        }
+        return result;
+    }
+}
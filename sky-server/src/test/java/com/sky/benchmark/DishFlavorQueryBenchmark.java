@@ -0,0 +1,95 @@
+package com.sky.benchmark;
+
+import com.sky.entity.DishFlavor;
+import com.sky.mapper.DishFlavorMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按分类查询菜品时填充口味: 每个菜品查询一次(getByDishId)与所有菜品查询一次(getByDishIds)对比
+ * 不同菜品数下的SQL条数在准备阶段输出，耗时为每个分类的平均耗时，见MapperFixture中关于网络往返的说明
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DishFlavorQueryBenchmark {
+
+    private static final int DISHES = 500;
+    private static final int FLAVORS_PER_DISH = 2;
+
+    // 每个分类的菜品数
+    @Param({"5", "20", "50"})
+    private int dishCount;
+
+    private MapperFixture fixture;
+    private DishFlavorMapper dishFlavorMapper;
+    private List<Long> dishIds;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = new MapperFixture("dishFlavor" + dishCount);
+        List<Object[]> rows = new ArrayList<>(DISHES * FLAVORS_PER_DISH);
+        for (long dishId = 1; dishId <= DISHES; dishId++) {
+            rows.add(new Object[]{dishId, "辣度", "[\"不辣\",\"微辣\",\"中辣\",\"重辣\"]"});
+            rows.add(new Object[]{dishId, "忌口", "[\"不要葱\",\"不要蒜\",\"不要香菜\",\"不要辣\"]"});
+        }
+        fixture.jdbcTemplate().batchUpdate("insert into dish_flavor(dish_id, name, value) values (?, ?, ?)", rows);
+        dishFlavorMapper = fixture.getMapper(DishFlavorMapper.class);
+
+        dishIds = new ArrayList<>(dishCount);
+        for (long dishId = 1; dishId <= dishCount; dishId++) {
+            dishIds.add(dishId * (DISHES / dishCount));
+        }
+
+        long before = fixture.queries();
+        perDish();
+        long perDish = fixture.queries() - before;
+        before = fixture.queries();
+        batched();
+        System.out.printf("%n每个分类%d个菜品: 逐个菜品查询%d条SQL，批量查询%d条SQL%n",
+                dishCount, perDish, fixture.queries() - before);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Map<Long, List<DishFlavor>> perDish() {
+        Map<Long, List<DishFlavor>> flavorMap = new HashMap<>();
+        for (Long dishId : dishIds) {
+            flavorMap.put(dishId, dishFlavorMapper.getByDishId(dishId));
+        }
+        return flavorMap;
+    }
+
+    @Benchmark
+    public Map<Long, List<DishFlavor>> batched() {
+        Map<Long, List<DishFlavor>> flavorMap = new HashMap<>();
+        for (DishFlavor flavor : dishFlavorMapper.getByDishIds(dishIds)) {
+            flavorMap.computeIfAbsent(flavor.getDishId(), id -> new ArrayList<>()).add(flavor);
+        }
+        return flavorMap;
+    }
+}
@@ -0,0 +1,109 @@
+package com.sky.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基准测试使用的MyBatis环境: H2内存数据库(MySQL兼容模式)按application.yml中的mybatis配置加载项目中的mapper XML，
+ * 并统计执行的SQL条数
+ * 数据库在进程内，测得的是每条SQL的解析、执行和结果映射开销，不包含网络往返；
+ * 连接MySQL时每多一条SQL还要多一次往返，批量查询与逐条查询的实际差距大于测得的结果
+ */
+public class MapperFixture implements AutoCloseable {
+
+    private final AtomicLong queries = new AtomicLong();
+    private final JdbcDataSource dataSource = new JdbcDataSource();
+    private final SqlSession sqlSession;
+
+    public MapperFixture(String name) throws Exception {
+        // 没有Spring Boot的日志配置时logback默认输出DEBUG日志，逐条打印SQL会掩盖查询本身的耗时
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        // value在H2中是关键字，在MySQL中可以直接作为列名(dish_flavor.value)
+        dataSource.setURL("jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("benchmark/schema.sql"));
+        }
+
+        Configuration configuration = new Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        // 同一个会话中重复执行相同的查询，关闭会话级缓存，每次都查询数据库
+        configuration.setLocalCacheScope(LocalCacheScope.STATEMENT);
+        configuration.addInterceptor(new QueryCounter(queries));
+        SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setTypeAliasesPackage("com.sky.entity");
+        factoryBean.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*.xml"));
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+        sqlSession = sqlSessionFactory.openSession(true);
+    }
+
+    public <T> T getMapper(Class<T> type) {
+        return sqlSession.getMapper(type);
+    }
+
+    /**
+     * 用于准备测试数据
+     */
+    public JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * 已执行的查询条数
+     */
+    public long queries() {
+        return queries.get();
+    }
+
+    @Override
+    public void close() {
+        sqlSession.close();
+    }
+
+    @Intercepts({
+            @Signature(type = Executor.class, method = "query",
+                    args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+            @Signature(type = Executor.class, method = "query",
+                    args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class,
+                            CacheKey.class, BoundSql.class})
+    })
+    private static class QueryCounter implements Interceptor {
+
+        private final AtomicLong queries;
+
+        QueryCounter(AtomicLong queries) {
+            this.queries = queries;
+        }
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            queries.incrementAndGet();
+            return invocation.proceed();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.sky.benchmark;
+
+import com.sky.entity.OrderDetail;
+import com.sky.mapper.OrderDetailMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单分页查询填充订单详情: 每个订单查询一次(getByOrderId)与整页查询一次(getByOrderIds)对比
+ * 不同页大小下的SQL条数在准备阶段输出，耗时为每页的平均耗时，见MapperFixture中关于网络往返的说明
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderDetailQueryBenchmark {
+
+    private static final int ORDERS = 5000;
+    private static final int DETAILS_PER_ORDER = 3;
+
+    @Param({"10", "50", "100"})
+    private int pageSize;
+
+    private MapperFixture fixture;
+    private OrderDetailMapper orderDetailMapper;
+    private List<Long> orderIds;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = new MapperFixture("orderDetail" + pageSize);
+        List<Object[]> rows = new ArrayList<>(ORDERS * DETAILS_PER_ORDER);
+        for (long orderId = 1; orderId <= ORDERS; orderId++) {
+            for (int i = 0; i < DETAILS_PER_ORDER; i++) {
+                rows.add(new Object[]{"菜品" + i, orderId, (long) i + 1, 1, 20});
+            }
+        }
+        fixture.jdbcTemplate().batchUpdate(
+                "insert into order_detail(name, order_id, dish_id, number, amount) values (?, ?, ?, ?, ?)", rows);
+        orderDetailMapper = fixture.getMapper(OrderDetailMapper.class);
+
+        // 最新的一页订单
+        orderIds = new ArrayList<>(pageSize);
+        for (long orderId = ORDERS; orderId > ORDERS - pageSize; orderId--) {
+            orderIds.add(orderId);
+        }
+
+        long before = fixture.queries();
+        perOrder();
+        long perOrder = fixture.queries() - before;
+        before = fixture.queries();
+        batched();
+        System.out.printf("%n每页%d个订单: 逐个订单查询%d条SQL，整页查询%d条SQL%n",
+                pageSize, perOrder, fixture.queries() - before);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Map<Long, List<OrderDetail>> perOrder() {
+        Map<Long, List<OrderDetail>> detailMap = new HashMap<>(orderIds.size() * 2);
+        for (Long orderId : orderIds) {
+            detailMap.put(orderId, orderDetailMapper.getByOrderId(orderId));
+        }
+        return detailMap;
+    }
+
+    @Benchmark
+    public Map<Long, List<OrderDetail>> batched() {
+        Map<Long, List<OrderDetail>> detailMap = new HashMap<>(orderIds.size() * 2);
+        for (OrderDetail orderDetail : orderDetailMapper.getByOrderIds(orderIds)) {
+            detailMap.computeIfAbsent(orderDetail.getOrderId(), k -> new ArrayList<>()).add(orderDetail);
+        }
+        return detailMap;
+    }
+}
@@ -0,0 +1,67 @@
+package com.sky.benchmark;
+
+import com.sky.utils.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单号生成吞吐量: 无锁的雪花算法生成器与相同算法的加锁实现对比
+ * 每毫秒4096个序列号用尽时生成器借用下一毫秒，压测速度远超该上限，这里不限制时钟回拨，
+ * 测得的是CAS路径本身的开销；实际可持续的上限为每节点每秒约409万个id
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnowflakeIdGeneratorBenchmark {
+
+    private final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, Long.MAX_VALUE);
+
+    private long lastTimestamp;
+    private long sequence;
+
+    /**
+     * 相同算法的加锁实现
+     */
+    private synchronized long lockedNextId() {
+        long now = System.currentTimeMillis() - SnowflakeIdGenerator.EPOCH;
+        if (now > lastTimestamp) {
+            lastTimestamp = now;
+            sequence = 0;
+        } else if (++sequence > 4095) {
+            lastTimestamp++;
+            sequence = 0;
+        }
+        return (lastTimestamp << 22) | (1L << 12) | sequence;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long snowflake1Thread() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long snowflake4Threads() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long locked4Threads() {
+        return lockedNextId();
+    }
+}
@@ -0,0 +1,176 @@
+package com.sky.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoalescingCacheTest {
+
+    private static final String KEY = "k";
+
+    private final Cache delegate = new ConcurrentMapCache("test");
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final AtomicInteger loads = new AtomicInteger();
+    // 阻塞的查询开始执行和允许返回
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    private CoalescingCache cache(long staleMillis, long waitMillis) {
+        return new CoalescingCache(delegate, staleMillis, waitMillis, 100, meterRegistry);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("sky.cache.coalesce").tag("result", result).counter().count();
+    }
+
+    /**
+     * 在另一个线程中执行阻塞的查询，返回时查询已经开始
+     */
+    private Future<String> blockedLoad(CoalescingCache cache, String value, RuntimeException failure) throws Exception {
+        Future<String> future = executor.submit(() -> cache.get(KEY, () -> {
+            loads.incrementAndGet();
+            started.countDown();
+            release.await();
+            if (failure != null) {
+                throw failure;
+            }
+            return value;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return future;
+    }
+
+    /**
+     * 在另一个线程中等待查询结果，返回时已经开始等待
+     */
+    private Future<String> waiting(CoalescingCache cache) throws Exception {
+        Future<String> future = executor.submit(() -> follow(cache));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (count("wait") < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, count("wait"));
+        return future;
+    }
+
+    private String follow(CoalescingCache cache) {
+        return cache.get(KEY, () -> {
+            loads.incrementAndGet();
+            return "follower";
+        });
+    }
+
+    @Test
+    void hitDoesNotLoad() {
+        delegate.put(KEY, "cached");
+        assertEquals("cached", follow(cache(5000, 1000)));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void leaderLoadsAndWritesThrough() {
+        CoalescingCache cache = cache(5000, 1000);
+        assertEquals("follower", follow(cache));
+        assertEquals(1, loads.get());
+        assertEquals("follower", delegate.get(KEY).get());
+        assertEquals(1, count("load"));
+    }
+
+    @Test
+    void waiterReceivesLeaderValue() throws Exception {
+        CoalescingCache cache = cache(0, 5000);
+        Future<String> leader = blockedLoad(cache, "fresh", null);
+        Future<String> waiter = waiting(cache);
+        assertFalse(waiter.isDone());
+        release.countDown();
+
+        assertEquals("fresh", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("fresh", waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void recentlySeenKeyReturnsStaleValueWithoutWaiting() throws Exception {
+        CoalescingCache cache = cache(5000, 5000);
+        delegate.put(KEY, "old");
+        assertEquals("old", follow(cache));
+        delegate.evict(KEY);
+
+        Future<String> leader = blockedLoad(cache, "fresh", null);
+        assertEquals("old", follow(cache));
+        assertEquals(1, count("stale"));
+
+        release.countDown();
+        assertEquals("fresh", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("fresh", follow(cache));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void failurePropagatesToWaiterAndNextCallLoadsAgain() throws Exception {
+        CoalescingCache cache = cache(0, 5000);
+        Future<String> leader = blockedLoad(cache, null, new IllegalStateException("db down"));
+        Future<String> waiter = waiting(cache);
+        release.countDown();
+
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(Cache.ValueRetrievalException.class, leaderError.getCause());
+        ExecutionException waiterError = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(Cache.ValueRetrievalException.class, waiterError.getCause());
+        assertInstanceOf(IllegalStateException.class, waiterError.getCause().getCause());
+        assertEquals(1, loads.get());
+
+        // 失败的查询不会留下记录，下一次请求重新查询
+        assertEquals("follower", follow(cache));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void waitTimeoutWithoutSeenValueFails() throws Exception {
+        CoalescingCache cache = cache(0, 100);
+        blockedLoad(cache, "fresh", null);
+
+        Cache.ValueRetrievalException e = assertThrows(Cache.ValueRetrievalException.class, () -> follow(cache));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(1, count("timeout"));
+    }
+
+    @Test
+    void waitTimeoutReturnsLastSeenValueOutsideStaleWindow() throws Exception {
+        CoalescingCache cache = cache(0, 100);
+        delegate.put(KEY, "old");
+        assertEquals("old", follow(cache));
+        delegate.evict(KEY);
+        Thread.sleep(5);
+
+        blockedLoad(cache, "fresh", null);
+        assertEquals("old", follow(cache));
+        assertEquals(0, count("stale"));
+        assertEquals(1, count("timeout"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.sky.cache;
+
+import com.sky.result.Result;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class LayeredCacheTest {
+
+    private final ConcurrentMapCache remote = new ConcurrentMapCache("test");
+
+    private LayeredCache cache(long maxWeight) {
+        // 只有删除缓存时才发布失效通知，这里不需要Redis
+        return new LayeredCache(remote, maxWeight, 600, null, "test", new SimpleMeterRegistry());
+    }
+
+    private static Result<List<String>> category(int size) {
+        List<String> dishes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dishes.add("菜品" + i);
+        }
+        return Result.success(dishes);
+    }
+
+    @Test
+    void resultListWeighsItsElementCount() {
+        assertEquals(30, LayeredCache.weight(category(30)));
+        assertEquals(30, LayeredCache.weight(category(30).getData()));
+        // 空列表和非列表的值计为1
+        assertEquals(1, LayeredCache.weight(category(0)));
+        assertEquals(1, LayeredCache.weight(Result.success("ok")));
+        assertEquals(1, LayeredCache.weight(Result.success()));
+    }
+
+    @Test
+    void largeCategoryUsesProportionallyMoreWeight() {
+        LayeredCache cache = cache(1000);
+        cache.put("small", category(5));
+        assertEquals(5, cache.localWeight());
+        cache.put("large", category(200));
+        assertEquals(205, cache.localWeight());
+    }
+
+    @Test
+    void categoryLargerThanBudgetIsServedFromRemote() {
+        LayeredCache cache = cache(100);
+        cache.put("huge", category(150));
+        assertEquals(0, cache.localWeight());
+        assertNotNull(remote.get("huge"));
+
+        Result<?> result = (Result<?>) cache.get("huge").get();
+        assertEquals(150, ((List<?>) result.getData()).size());
+        assertEquals(0, cache.localWeight());
+    }
+}
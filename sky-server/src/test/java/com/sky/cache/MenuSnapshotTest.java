@@ -0,0 +1,36 @@
+package com.sky.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MenuSnapshotTest {
+
+    private final MenuSnapshot snapshot = new MenuSnapshot("\"abc\"", new byte[0], 0, LocalDateTime.now());
+
+    @Test
+    void gzipAndIdentityHaveDifferentTags() {
+        assertEquals("\"abc\"", snapshot.getEtag(false));
+        assertEquals("\"abc-gzip\"", snapshot.getEtag(true));
+    }
+
+    @Test
+    void tagOfOneCodingDoesNotMatchTheOther() {
+        assertTrue(snapshot.matches("\"abc\"", false));
+        assertFalse(snapshot.matches("\"abc\"", true));
+        assertTrue(snapshot.matches("\"abc-gzip\"", true));
+        assertFalse(snapshot.matches("\"abc-gzip\"", false));
+    }
+
+    @Test
+    void weakTagsAndListsAreCompared() {
+        assertTrue(snapshot.matches("W/\"abc-gzip\"", true));
+        assertTrue(snapshot.matches("\"old\", \"abc\"", false));
+        assertTrue(snapshot.matches("*", true));
+        assertFalse(snapshot.matches(null, false));
+    }
+}
@@ -0,0 +1,97 @@
+package com.sky.report;
+
+import com.sky.enumeration.TimeGranularity;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BusinessStatsSeriesTest {
+
+    // 2024-01-01是周一
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void dayBucketsCoverEveryDayInclusive() {
+        BusinessStatsSeries series = new BusinessStatsSeries(TimeGranularity.DAY, MONDAY, MONDAY.plusDays(2));
+        assertEquals(3, series.size());
+        assertEquals("2024-01-01,2024-01-02,2024-01-03", series.labels());
+
+        series.add(MONDAY.plusDays(1).atTime(12, 0), BigDecimal.ONE, 1, 2, 3);
+        assertEquals("0,1,0", series.validOrders());
+        assertEquals("0,2,0", series.totalOrders());
+        assertEquals("0,3,0", series.newUsers());
+    }
+
+    @Test
+    void weekBucketsStartOnMondayAndFirstLabelIsBeginDate() {
+        // 周三到下下周一: 第一周不完整，最后一周只有一天
+        LocalDate wednesday = MONDAY.plusDays(2);
+        BusinessStatsSeries series = new BusinessStatsSeries(TimeGranularity.WEEK, wednesday, MONDAY.plusDays(14));
+        assertEquals(3, series.size());
+        assertEquals("2024-01-03,2024-01-08,2024-01-15", series.labels());
+
+        series.add(wednesday.atStartOfDay(), BigDecimal.ZERO, 1, 0, 0);
+        series.add(MONDAY.plusDays(6).atTime(23, 59), BigDecimal.ZERO, 1, 0, 0);
+        series.add(MONDAY.plusDays(7).atStartOfDay(), BigDecimal.ZERO, 1, 0, 0);
+        series.add(MONDAY.plusDays(14).atTime(8, 0), BigDecimal.ZERO, 1, 0, 0);
+        assertEquals("2,1,1", series.validOrders());
+        assertEquals(4, series.sumValidOrders());
+    }
+
+    @Test
+    void weekRangeWithinOneWeekHasOneBucket() {
+        BusinessStatsSeries series = new BusinessStatsSeries(TimeGranularity.WEEK, MONDAY.plusDays(1), MONDAY.plusDays(6));
+        assertEquals(1, series.size());
+        assertEquals("2024-01-02", series.labels());
+    }
+
+    @Test
+    void hourBucketsCoverEveryHourOfEveryDay() {
+        BusinessStatsSeries series = new BusinessStatsSeries(TimeGranularity.HOUR, MONDAY, MONDAY.plusDays(1));
+        assertEquals(48, series.size());
+        String[] labels = series.labels().split(",");
+        assertEquals("2024-01-01 00:00", labels[0]);
+        assertEquals("2024-01-01 23:00", labels[23]);
+        assertEquals("2024-01-02 23:00", labels[47]);
+
+        series.add(LocalDateTime.of(2024, 1, 2, 5, 30), BigDecimal.ZERO, 0, 1, 0);
+        assertEquals("1", series.totalOrders().split(",")[29]);
+        assertEquals(1, series.sumTotalOrders());
+    }
+
+    @Test
+    void dataOutsideRangeIsIgnored() {
+        BusinessStatsSeries series = new BusinessStatsSeries(TimeGranularity.DAY, MONDAY, MONDAY);
+        series.add(MONDAY.minusDays(1).atTime(23, 59, 59), BigDecimal.TEN, 1, 1, 1);
+        series.add(MONDAY.plusDays(1).atStartOfDay(), BigDecimal.TEN, 1, 1, 1);
+        assertEquals("0.00", series.turnover());
+        assertEquals("0", series.validOrders());
+    }
+
+    @Test
+    void turnoverIsFormattedWithTwoDecimals() {
+        BusinessStatsSeries series = new BusinessStatsSeries(TimeGranularity.DAY, MONDAY, MONDAY.plusDays(5));
+        series.add(MONDAY.atStartOfDay(), new BigDecimal("12.3"), 0, 0, 0);
+        series.add(MONDAY.plusDays(1).atStartOfDay(), new BigDecimal("0.05"), 0, 0, 0);
+        series.add(MONDAY.plusDays(2).atStartOfDay(), new BigDecimal("100"), 0, 0, 0);
+        series.add(MONDAY.plusDays(3).atStartOfDay(), new BigDecimal("-1.5"), 0, 0, 0);
+        // 按分四舍五入后累加
+        series.add(MONDAY.plusDays(4).atStartOfDay(), new BigDecimal("0.005"), 0, 0, 0);
+        series.add(MONDAY.plusDays(4).atStartOfDay(), new BigDecimal("0.994"), 0, 0, 0);
+        assertEquals("12.30,0.05,100.00,-1.50,1.00,0.00", series.turnover());
+    }
+
+    @Test
+    void cumulativeUsersStartFromBase() {
+        BusinessStatsSeries series = new BusinessStatsSeries(TimeGranularity.DAY, MONDAY, MONDAY.plusDays(2));
+        series.add(MONDAY.atStartOfDay(), BigDecimal.ZERO, 0, 0, 2);
+        series.add(MONDAY.plusDays(2).atStartOfDay(), BigDecimal.ZERO, 0, 0, 3);
+        assertEquals("2,0,3", series.newUsers());
+        assertEquals("102,102,105", series.cumulativeUsers(100));
+        assertEquals("2,2,5", series.cumulativeUsers(0));
+    }
+}
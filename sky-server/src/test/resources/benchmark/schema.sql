@@ -0,0 +1,29 @@
+-- 基准测试使用的表，字段和索引与线上表一致
+create table order_detail (
+    id bigint auto_increment primary key,
+    name varchar(32),
+    image varchar(255),
+    order_id bigint not null,
+    dish_id bigint,
+    setmeal_id bigint,
+    dish_flavor varchar(50),
+    number int not null default 1,
+    amount decimal(10, 2) not null
+);
+create index idx_order_detail_order_id on order_detail (order_id);
+
+create table dish_flavor (
+    id bigint auto_increment primary key,
+    dish_id bigint not null,
+    name varchar(32),
+    value varchar(255)
+);
+create index idx_dish_flavor_dish_id on dish_flavor (dish_id);
+
+create table daily_business_stats (
+    stat_date date primary key,
+    turnover decimal(12, 2) not null default 0,
+    valid_order_count int not null default 0,
+    total_order_count int not null default 0,
+    new_users int not null default 0
+);